@@ -1,5 +1,6 @@
 package de.tuberlin.onedrivesdk;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import de.tuberlin.onedrivesdk.folder.OneFolder;
 import de.tuberlin.onedrivesdk.drive.OneDrive;
 import de.tuberlin.onedrivesdk.file.OneFile;
@@ -71,6 +72,14 @@ public interface OneDriveSDK {
      */
     OneFolder getFolderById(String id) throws IOException, OneDriveException;
 
+    /**
+     * Gets folder by id without blocking the calling thread.
+     *
+     * @param id
+     * @return future of the OneFolder, failing with an IOException or OneDriveException
+     */
+    ListenableFuture<OneFolder> getFolderByIdAsync(String id);
+
 
     /**
      * Gets folder by path.
@@ -93,6 +102,14 @@ public interface OneDriveSDK {
      */
     OneFile getFileById(String id) throws IOException, OneDriveException;
 
+    /**
+     * Gets file by id without blocking the calling thread.
+     *
+     * @param id
+     * @return future of the OneFile, failing with an IOException or OneDriveException
+     */
+    ListenableFuture<OneFile> getFileByIdAsync(String id);
+
 
     /**
      * Gets file by path.
@@ -1,10 +1,13 @@
 package de.tuberlin.onedrivesdk.common;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.Response;
+import com.squareup.okhttp.*;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.OneDriveSDK;
 import de.tuberlin.onedrivesdk.drive.ConcreteOneDrive;
@@ -19,14 +22,31 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.simple.parser.ParseException;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * This class provides the functionality to authenticate to OneDrive and handles the communication.
@@ -35,8 +55,30 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
     private static final Logger logger = LogManager.getLogger(OneDriveSession.class);
     private static final Gson gson = new Gson();
 
+    /**
+     * Files below this size are uploaded with a single PUT, the API accepts up to 4 MB this way
+     */
+    public static final long DEFAULT_SIMPLE_UPLOAD_THRESHOLD = 4 * 1000 * 1000;
+
     private String baseUrl = "https://api.onedrive.com/v1.0/";
+    private long simpleUploadThreshold = DEFAULT_SIMPLE_UPLOAD_THRESHOLD;
+    private File uploadJournalDirectory = new File(System.getProperty("java.io.tmpdir"), "onedrive-upload-journal");
+    private boolean skipUnchangedUploads = false;
     private OneDriveSession session;
+    private volatile RetryPolicy retryPolicy = new RetryPolicy();
+    private volatile ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter();
+    private volatile ItemCache itemCache = new ItemCache();
+    private volatile PathCache pathCache = new PathCache();
+    private final AtomicLong retries = new AtomicLong();
+    private final Set<Object> canceledTags = Collections.newSetFromMap(new WeakHashMap<Object, Boolean>());
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-background-%d").build());
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-retry-%d").build());
+    /**
+     * Asynchronous calls waiting for a scheduled retry, they are failed on disconnect
+     */
+    private final Set<AsyncCall<?>> waitingRetries = Collections.newSetFromMap(new ConcurrentHashMap<AsyncCall<?>, Boolean>());
 
     /**
      * Instantiates a new ConcreteOneDriveSDK.
@@ -68,6 +110,12 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
         return new ConcreteOneDriveSDK(session);
     }
 
+    static ConcreteOneDriveSDK createFromSession(OneDriveSession session, String baseUrl) {
+        ConcreteOneDriveSDK sdk = new ConcreteOneDriveSDK(session);
+        sdk.baseUrl = baseUrl;
+        return sdk;
+    }
+
     @Override
     public List<OneDrive> getAllDrives() throws IOException, OneDriveException {
         String requestURL = "drives/";
@@ -128,20 +176,27 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
 
     @Override
     public OneFolder getFolderById(String id) throws IOException, OneDriveException {
-        String requestURL = "drive/items/%s";
+        ItemCache cache = this.itemCache;
+        OneItem cached = cache == null ? null : cache.get(id, ConcreteOneFolder.class);
 
-        PreparedRequest request = new PreparedRequest(String.format(requestURL, id), PreparedRequestMethod.GET);
+        PreparedRequest request = this.prepareGetItem(id, cached);
 
-        String json = this.makeRequest(request).getBodyAsString();
-        ConcreteOneFolder oneFolder = null;
-        try {
-            oneFolder = ConcreteOneFolder.fromJSON(json);
-        } catch (ParseException e) {
-            throw new OneDriveException("API - response could not be processed", e);
-        }
-        oneFolder.setApi(this);
+        return this.toFolder(this.makeRequest(request), cache, cached);
+    }
 
-        return oneFolder;
+    @Override
+    public ListenableFuture<OneFolder> getFolderByIdAsync(String id) {
+        final ItemCache cache = this.itemCache;
+        final OneItem cached = cache == null ? null : cache.get(id, ConcreteOneFolder.class);
+
+        PreparedRequest request = this.prepareGetItem(id, cached);
+
+        return this.makeRequestAsync(request, new ResponseHandler<OneFolder>() {
+            @Override
+            public OneFolder handle(OneResponse response) throws OneDriveException {
+                return toFolder(response, cache, cached);
+            }
+        });
     }
 
     @Override
@@ -178,19 +233,42 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
 
     @Override
     public OneFile getFileById(String id) throws IOException, OneDriveException {
-        String requestURL = "drive/items/%s";
+        ItemCache cache = this.itemCache;
+        OneItem cached = cache == null ? null : cache.get(id, ConcreteOneFile.class);
 
-        PreparedRequest request = new PreparedRequest(String.format(requestURL, id), PreparedRequestMethod.GET);
+        PreparedRequest request = this.prepareGetItem(id, cached);
 
-        String json = this.makeRequest(request).getBodyAsString();
-        ConcreteOneFile file = null;
-        try {
-            file = ConcreteOneFile.fromJSON(json);
-        } catch (ParseException e) {
-            throw new OneDriveException("API - response could not be processed", e);
+        return this.toFile(this.makeRequest(request), cache, cached);
+    }
+
+    @Override
+    public ListenableFuture<OneFile> getFileByIdAsync(String id) {
+        final ItemCache cache = this.itemCache;
+        final OneItem cached = cache == null ? null : cache.get(id, ConcreteOneFile.class);
+
+        PreparedRequest request = this.prepareGetItem(id, cached);
+
+        return this.makeRequestAsync(request, new ResponseHandler<OneFile>() {
+            @Override
+            public OneFile handle(OneResponse response) throws OneDriveException {
+                return toFile(response, cache, cached);
+            }
+        });
+    }
+
+    /**
+     * Prepares the request of an item by id, conditional on the eTag of a cached copy.
+     *
+     * @param id     item id
+     * @param cached cached copy of the item, may be null
+     * @return request
+     */
+    private PreparedRequest prepareGetItem(String id, OneItem cached) {
+        PreparedRequest request = new PreparedRequest(String.format("drive/items/%s", id), PreparedRequestMethod.GET);
+        if (cached != null) {
+            request.addHeader("If-None-Match", cached.getETag());
         }
-        file.setApi(this);
-        return file;
+        return request;
     }
 
     @Override
@@ -200,41 +278,99 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
 
     @Override
     public OneFolder getFolderByPath(String pathToFolder, OneDrive drive) throws IOException, OneDriveException {
+        return (OneFolder) this.getItemByPath(pathToFolder, drive, true);
+    }
+
+    @Override
+    public OneFile getFileByPath(String pathToFile, OneDrive drive) throws IOException, OneDriveException {
+        return (OneFile) this.getItemByPath(pathToFile, drive, false);
+    }
+
+    /**
+     * Resolves a path, through the path cache if there is one.
+     *
+     * @param path   path within the drive
+     * @param drive  drive, null for the default drive
+     * @param folder whether a folder or a file is expected
+     * @return item
+     * @throws IOException
+     * @throws OneDriveException if the path does not exist or the response can not be processed
+     */
+    private OneItem getItemByPath(String path, OneDrive drive, boolean folder) throws IOException, OneDriveException {
+        PathCache paths = this.pathCache;
+        String driveId = drive == null ? null : drive.getId();
+        if (paths != null) {
+            OneItem cached = this.resolveCachedPath(paths, driveId, path, folder);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
         String requestURL = (drive == null) ? "drive" : String.format("drives/%s", drive.getId());
         requestURL += "/%s";
 
-        PreparedRequest request = new PreparedRequest(String.format(requestURL, this.convertPathToApiPath(pathToFolder)), PreparedRequestMethod.GET);
+        PreparedRequest request = new PreparedRequest(String.format(requestURL, this.convertPathToApiPath(path)), PreparedRequestMethod.GET);
 
-        String json = this.makeRequest(request).getBodyAsString();
-        ConcreteOneFolder oneFolder = null;
+        OneResponse response = this.makeRequest(request);
+        String json = response.getBodyAsString();
+        OneItem item = null;
         try {
-            oneFolder = ConcreteOneFolder.fromJSON(json);
+            item = folder ? ConcreteOneFolder.fromJSON(json) : ConcreteOneFile.fromJSON(json);
         } catch (ParseException e) {
             throw new OneDriveException("API - response could not be processed", e);
+        } catch (OneDriveException e) {
+            if (paths != null && response.getStatusCode() == 404) {
+                paths.putMissing(driveId, path, e.getMessage());
+            }
+            throw e;
         }
-        oneFolder.setApi(this);
+        item.setApi(this);
 
-        return oneFolder;
+        if (paths != null && item.getETag() != null && !item.getETag().isEmpty()) {
+            paths.put(driveId, path, item);
+            ItemCache items = this.itemCache;
+            if (items != null) {
+                items.put(item);
+            }
+        }
+        return item;
     }
 
-    @Override
-    public OneFile getFileByPath(String pathToFile, OneDrive drive) throws IOException, OneDriveException {
-        String requestURL = (drive == null) ? "drive" : String.format("drives/%s", drive.getId());
-        requestURL += "/%s";
+    /**
+     * Answers a path from the path cache. An expired path, or one whose item is no longer cached,
+     * is confirmed by requesting the item with its eTag.
+     *
+     * @return the item or null if the path has to be looked up
+     * @throws OneDriveException if the path is known to be missing
+     */
+    private OneItem resolveCachedPath(PathCache paths, String driveId, String path, boolean folder) throws IOException, OneDriveException {
+        PathCache.Resolution entry = paths.get(driveId, path);
+        if (entry == null || (entry.isMissing() && !entry.isFresh())) {
+            return null;
+        }
+        if (entry.isMissing()) {
+            paths.hit();
+            throw new OneDriveException(entry.error);
+        }
 
-        PreparedRequest request = new PreparedRequest(String.format(requestURL, this.convertPathToApiPath(pathToFile)), PreparedRequestMethod.GET);
+        ItemCache items = this.itemCache;
+        OneItem item = items == null ? null : items.get(entry.id, folder ? ConcreteOneFolder.class : ConcreteOneFile.class);
+        if (entry.isFresh() && item != null && entry.eTag.equals(item.getETag())) {
+            paths.hit();
+            return item;
+        }
 
-        String json = this.makeRequest(request).getBodyAsString();
-        ConcreteOneFile file = null;
         try {
-            file = ConcreteOneFile.fromJSON(json);
-        } catch (ParseException e) {
-            throw new OneDriveException("API - response could not be processed", e);
+            item = folder ? (OneItem) this.getFolderById(entry.id) : (OneItem) this.getFileById(entry.id);
+        } catch (OneDriveException e) {
+            // the item is gone, the path may belong to another item now
+            return null;
         }
-        file.setApi(this);
-
-        return file;
+        if (!entry.eTag.equals(item.getETag())) {
+            return null;
+        }
+        paths.revalidated(entry);
+        return item;
     }
 
     @Override
@@ -259,6 +395,13 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
     @Override
     public void disconnect() throws IOException {
         this.session.terminate();
+        this.backgroundExecutor.shutdownNow();
+        this.retryScheduler.shutdownNow();
+        for (AsyncCall<?> call : waitingRetries) {
+            if (waitingRetries.remove(call)) {
+                call.abort(new IOException("Disconnected before the request could be retried"));
+            }
+        }
     }
 
     @Override
@@ -291,8 +434,193 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
         return gson.fromJson(json, UploadSession.class);
     }
 
+    /**
+     * Uploads the content of a file with a single PUT request, without an upload session.
+     *
+     * @param folder   target folder
+     * @param fileName name of the file in OneDrive
+     * @param content  content of the file, e.g. a {@link FileRegionBody}
+     * @param tag      tag of the request to abort it with {@link #cancelRequests(Object)}, may be null
+     * @return the created or replaced file
+     * @throws IOException
+     * @throws OneDriveException if the server did not accept the content
+     */
+    public OneFile uploadContent(ConcreteOneFolder folder, String fileName, RequestBody content, Object tag) throws IOException, OneDriveException {
+        String url = String.format("drive/items/%s:/%s:/content", folder.getId(), fileName);
+        PreparedRequest request = new PreparedRequest(url, PreparedRequestMethod.PUT).setBody(content).setTag(tag);
+        request.addHeader("Content-Length", content.contentLength() + "");
+
+        OneResponse response = this.makeRequest(request);
+        if (response.getStatusCode() != 200 && response.getStatusCode() != 201) {
+            throw new OneDriveException(String.format("Upload of %s failed with status %d: %s",
+                    fileName, response.getStatusCode(), response.getBodyAsString()));
+        }
+        OneFile uploaded = this.toFile(response);
+        PathCache paths = this.pathCache;
+        if (paths != null) {
+            paths.invalidateNewChild(folder.getId(), (OneItem) uploaded);
+        }
+        return uploaded;
+    }
+
+    /**
+     * Files smaller than the threshold are uploaded with a single request by {@link ConcreteOneFolder#uploadFile(File)},
+     * larger files use a resumable upload session.
+     *
+     * @param simpleUploadThreshold size in bytes, 0 uses upload sessions for all files
+     */
+    public void setSimpleUploadThreshold(long simpleUploadThreshold) {
+        checkArgument(simpleUploadThreshold >= 0, "threshold must not be negative");
+        this.simpleUploadThreshold = simpleUploadThreshold;
+    }
+
+    public long getSimpleUploadThreshold() {
+        return simpleUploadThreshold;
+    }
+
+    /**
+     * Sets where upload sessions are recorded. An upload of an unchanged file into the same folder
+     * continues a recorded, unexpired session, even if it was started by another process.
+     *
+     * @param uploadJournalDirectory directory for the records, null disables the journal
+     */
+    public void setUploadJournalDirectory(File uploadJournalDirectory) {
+        this.uploadJournalDirectory = uploadJournalDirectory;
+    }
+
+    public File getUploadJournalDirectory() {
+        return uploadJournalDirectory;
+    }
+
+    /**
+     * Lets {@link ConcreteOneFolder#uploadFile(File)} compare a file with an existing remote file of the same name first.
+     * If size and hash are equal, nothing is transferred. Costs one request per upload and, for files of equal size,
+     * one read of the local file.
+     *
+     * @param skipUnchangedUploads true to skip uploads of unchanged files
+     */
+    public void setSkipUnchangedUploads(boolean skipUnchangedUploads) {
+        this.skipUnchangedUploads = skipUnchangedUploads;
+    }
+
+    public boolean isSkipUnchangedUploads() {
+        return skipUnchangedUploads;
+    }
+
+    /**
+     * Aborts all running requests with the given tag, their execution fails with an IOException.
+     * The tag stays canceled, requests waiting for a retry are abandoned as well.
+     *
+     * @param tag tag set with {@link PreparedRequest#setTag(Object)}
+     */
+    public void cancelRequests(Object tag) {
+        synchronized (canceledTags) {
+            canceledTags.add(tag);
+            canceledTags.notifyAll();
+        }
+        session.getClient().cancel(tag);
+    }
+
+    private boolean isCanceled(Object tag) {
+        synchronized (canceledTags) {
+            return tag != null && canceledTags.contains(tag);
+        }
+    }
+
+    /**
+     * Sets which failed requests are sent again, applies to all requests of the SDK.
+     *
+     * @param retryPolicy policy, {@link RetryPolicy#none()} disables retrying
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = checkNotNull(retryPolicy);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the adaptive limit of requests in flight per drive. Requests above the limit wait until they may be sent,
+     * asynchronous requests wait without blocking a thread.
+     *
+     * @param concurrencyLimiter limiter, null sends all requests right away
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Sets the cache of item metadata used by getFolderById, getFileById and refreshing items.
+     *
+     * @param itemCache cache, null fetches items in full every time
+     */
+    public void setItemCache(ItemCache itemCache) {
+        this.itemCache = itemCache;
+    }
+
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * Sets the cache of resolved paths used by getFolderByPath and getFileByPath.
+     *
+     * @param pathCache cache, null looks every path up
+     */
+    public void setPathCache(PathCache pathCache) {
+        this.pathCache = pathCache;
+    }
+
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * @return number of retries made by all requests of the SDK so far
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * Gets a file of the given folder by its name.
+     *
+     * @param folder   parent folder
+     * @param fileName name of the file
+     * @return the file or null if the folder has no file of that name
+     * @throws IOException
+     * @throws OneDriveException
+     */
+    public OneFile getChildFile(ConcreteOneFolder folder, String fileName) throws IOException, OneDriveException {
+        String url = String.format("drive/items/%s:/%s", folder.getId(), fileName);
+        OneResponse response = this.makeRequest(new PreparedRequest(url, PreparedRequestMethod.GET));
+        if (response.getStatusCode() == 404) {
+            return null;
+        }
+        if (!response.wasSuccess()) {
+            throw new OneDriveException(response.getBodyAsString());
+        }
+        OneItem item;
+        try {
+            item = OneItem.fromJSON(response.getBodyAsString());
+        } catch (ParseException e) {
+            throw new OneDriveException("API - response could not be processed", e);
+        }
+        if (!item.isFile()) {
+            return null;
+        }
+        item.setApi(this);
+        return (OneFile) item;
+    }
+
     /**
      * Gets all children of the given folder depending on the type.
+     * Follows the paging of the OneDrive API until the last page has been fetched.
      *
      * @param concreteOneFolder
      * @param type
@@ -301,21 +629,222 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
      * @throws OneDriveException
      */
     public List<OneItem> getChildren(ConcreteOneFolder concreteOneFolder, OneItemType type) throws IOException, OneDriveException {
+        List<OneItem> items = new ArrayList<>();
+
+        OneItemPage page = this.getItemPage(String.format("drive/items/%s/children", concreteOneFolder.getId()), type);
+        items.addAll(page.getItems());
+        while (page.hasNextPage()) {
+            page = this.getItemPage(page.getNextLink(), type);
+            items.addAll(page.getItems());
+        }
+        return items;
+    }
+
+    /**
+     * Lazily iterates over the children of the given folder depending on the type.
+     * Pages are requested on demand, the next page is fetched in the background while the current one is consumed.
+     *
+     * @param concreteOneFolder
+     * @param type
+     * @return children
+     */
+    public Iterable<OneItem> iterateChildren(ConcreteOneFolder concreteOneFolder, OneItemType type) {
         String requestURL = String.format("drive/items/%s/children", concreteOneFolder.getId());
+        return new PagedItemIterable(this, backgroundExecutor, requestURL, type);
+    }
 
-        PreparedRequest request = new PreparedRequest(requestURL, PreparedRequestMethod.GET);
-        String json = this.makeRequest(request).getBodyAsString();
+    /**
+     * Asynchronously gets all children of the given folder depending on the type.
+     * Pages are requested one after another without blocking the calling thread.
+     *
+     * @param concreteOneFolder
+     * @param type
+     * @return future of the children
+     */
+    public ListenableFuture<List<OneItem>> getChildrenAsync(ConcreteOneFolder concreteOneFolder, OneItemType type) {
+        SettableFuture<List<OneItem>> children = SettableFuture.create();
+        String requestURL = String.format("drive/items/%s/children", concreteOneFolder.getId());
+        this.collectPagesAsync(requestURL, type, new ArrayList<OneItem>(), children);
+        return children;
+    }
+
+    private void collectPagesAsync(String url, final OneItemType type, final List<OneItem> items,
+                                   final SettableFuture<List<OneItem>> children) {
+        PreparedRequest request = new PreparedRequest(url, PreparedRequestMethod.GET);
+        ListenableFuture<OneItemPage> page = this.makeRequestAsync(request, new ResponseHandler<OneItemPage>() {
+            @Override
+            public OneItemPage handle(OneResponse response) throws OneDriveException {
+                return toItemPage(response, type);
+            }
+        });
+
+        Futures.addCallback(page, new FutureCallback<OneItemPage>() {
+            @Override
+            public void onSuccess(OneItemPage page) {
+                items.addAll(page.getItems());
+                if (page.hasNextPage() && !children.isCancelled()) {
+                    collectPagesAsync(page.getNextLink(), type, items, children);
+                } else {
+                    children.set(items);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                children.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Enumerates the changes below a folder since an earlier enumeration, see {@link DeltaEnumeration}.
+     *
+     * @param folder
+     * @param token  token of the earlier enumeration, null to enumerate everything
+     * @return enumeration
+     */
+    public DeltaEnumeration delta(ConcreteOneFolder folder, String token) {
+        return new DeltaEnumeration(this, String.format("drive/items/%s/view.delta", folder.getId()), token, null, null);
+    }
+
+    /**
+     * Enumerates the changes below a folder since the enumeration whose token was saved in the store.
+     * The token of this enumeration is saved once it was consumed completely.
+     *
+     * @param folder
+     * @param store
+     * @return enumeration
+     * @throws IOException if the token can not be loaded
+     */
+    public DeltaEnumeration delta(ConcreteOneFolder folder, DeltaTokenStore store) throws IOException {
+        String key = "folder:" + folder.getId();
+        return new DeltaEnumeration(this, String.format("drive/items/%s/view.delta", folder.getId()), store.load(key), store, key);
+    }
+
+    /**
+     * Enumerates the changes in a drive since an earlier enumeration, see {@link DeltaEnumeration}.
+     *
+     * @param drive
+     * @param token token of the earlier enumeration, null to enumerate everything
+     * @return enumeration
+     */
+    public DeltaEnumeration delta(OneDrive drive, String token) {
+        return new DeltaEnumeration(this, String.format("drives/%s/root/view.delta", drive.getId()), token, null, null);
+    }
+
+    /**
+     * Enumerates the changes in a drive since the enumeration whose token was saved in the store.
+     *
+     * @param drive
+     * @param store
+     * @return enumeration
+     * @throws IOException if the token can not be loaded
+     */
+    public DeltaEnumeration delta(OneDrive drive, DeltaTokenStore store) throws IOException {
+        String key = "drive:" + drive.getId();
+        return new DeltaEnumeration(this, String.format("drives/%s/root/view.delta", drive.getId()), store.load(key), store, key);
+    }
+
+    /**
+     * Fetches a single page of a delta enumeration. Deleted items are removed from the item and path caches.
+     *
+     * @param url api path or complete next link of the page
+     * @return page or null if the server rejected the token (410 Gone)
+     * @throws IOException
+     * @throws OneDriveException
+     */
+    OneItemPage getDeltaPage(String url) throws IOException, OneDriveException {
+        OneResponse response = this.makeRequest(new PreparedRequest(url, PreparedRequestMethod.GET));
+        if (response.getStatusCode() == 410) {
+            return null;
+        }
+        OneItemPage page = this.toItemPage(response, OneItemType.ALL);
+        ItemCache items = this.itemCache;
+        PathCache paths = this.pathCache;
+        for (OneItem item : page.getItems()) {
+            if (item.isDeleted() && items != null) {
+                items.invalidate(item.getId());
+            }
+            if (item.isDeleted() && paths != null) {
+                paths.invalidateItem(item.getId());
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Fetches a single page of an item collection.
+     *
+     * @param url  api path or complete next link of the page
+     * @param type
+     * @return page
+     * @throws IOException
+     * @throws OneDriveException
+     */
+    public OneItemPage getItemPage(String url, OneItemType type) throws IOException, OneDriveException {
+        PreparedRequest request = new PreparedRequest(url, PreparedRequestMethod.GET);
+        return this.toItemPage(this.makeRequest(request), type);
+    }
+
+    private OneItemPage toItemPage(OneResponse response, OneItemType type) throws OneDriveException {
+        byte[] json = response.getBodyAsBytes();
+
+        OneItemPage page = OneItem.parseItemPageFromJson(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8), type);
+        for (OneItem item : page.getItems()) {
+            item.setApi(this);
+        }
+        return page;
+    }
 
-        List<OneItem> items = null;
+    private OneFolder toFolder(OneResponse response) throws OneDriveException {
+        ConcreteOneFolder oneFolder = null;
         try {
-            items = OneItem.parseItemsFromJson(json, type);
+            oneFolder = ConcreteOneFolder.fromJSON(response.getBodyAsString());
         } catch (ParseException e) {
             throw new OneDriveException("API - response could not be processed", e);
         }
-        for (OneItem item : items) {
-            item.setApi(this);
+        oneFolder.setApi(this);
+
+        return oneFolder;
+    }
+
+    /**
+     * Converts the response of a conditional request, 304 Not Modified returns the cached item.
+     */
+    private OneFolder toFolder(OneResponse response, ItemCache cache, OneItem cached) throws OneDriveException {
+        if (cached != null && response.getStatusCode() == 304) {
+            cache.validated(cached);
+            return (OneFolder) cached;
         }
-        return items;
+        OneFolder folder = this.toFolder(response);
+        if (cache != null && response.wasSuccess()) {
+            cache.put((OneItem) folder);
+        }
+        return folder;
+    }
+
+    private OneFile toFile(OneResponse response, ItemCache cache, OneItem cached) throws OneDriveException {
+        if (cached != null && response.getStatusCode() == 304) {
+            cache.validated(cached);
+            return (OneFile) cached;
+        }
+        OneFile file = this.toFile(response);
+        if (cache != null && response.wasSuccess()) {
+            cache.put((OneItem) file);
+        }
+        return file;
+    }
+
+    private OneFile toFile(OneResponse response) throws OneDriveException {
+        ConcreteOneFile file = null;
+        try {
+            file = ConcreteOneFile.fromJSON(response.getBodyAsString());
+        } catch (ParseException e) {
+            throw new OneDriveException("API - response could not be processed", e);
+        }
+        file.setApi(this);
+        return file;
     }
 
     /**
@@ -376,7 +905,339 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
      * @throws IOException
      */
     public OneResponse makeRequest(PreparedRequest preparedRequest) throws IOException, OneDriveAuthenticationException {
+        return this.execute(preparedRequest, true);
+    }
+
+    /**
+     * Perform the HTTP request to the OneDrive API without reading the response body.
+     * The body must be consumed through {@link OneResponse#getBodyAsStream()} and closed by the caller.
+     *
+     * @param preparedRequest
+     * @return OneResponse with a streamed body
+     * @throws IOException
+     */
+    public OneResponse makeStreamingRequest(PreparedRequest preparedRequest) throws IOException, OneDriveAuthenticationException {
+        return this.execute(preparedRequest, false);
+    }
 
+    /**
+     * Executes the request and sends it again as long as the retry policy allows it.
+     * The request is built anew for every attempt, so a refreshed access token is used.
+     *
+     * @param preparedRequest
+     * @param buffered        whether the body of the final response is read into memory
+     * @return the first response which is not retried
+     * @throws IOException if the last attempt failed, the request was canceled or the thread interrupted
+     */
+    private OneResponse execute(PreparedRequest preparedRequest, boolean buffered) throws IOException, OneDriveAuthenticationException {
+        RetryPolicy policy = this.retryPolicy;
+        ConcurrencyLimiter limiter = this.concurrencyLimiter;
+        for (int retry = 0; ; retry++) {
+            Call call = session.getClient().newCall(this.buildRequest(preparedRequest));
+            ConcurrencyLimiter.Permit permit = limiter == null ? null : limiter.acquire(ConcurrencyLimiter.keyOf(preparedRequest.getPath()));
+            long sent = System.nanoTime();
+            Response response;
+            try {
+                response = call.execute();
+                finish(permit, preparedRequest, response, sent);
+            } catch (IOException e) {
+                finish(permit, preparedRequest, null, sent);
+                if (retry >= policy.getMaxRetries() || isCanceled(preparedRequest.getTag())
+                        || !policy.isRetryable(preparedRequest.getMethod(), e)) {
+                    throw e;
+                }
+                logger.warn("Request to {} failed, retrying", preparedRequest.getPath(), e);
+                this.backOff(preparedRequest, policy.delayMillis(retry, null));
+                continue;
+            }
+
+            if (retry < policy.getMaxRetries() && policy.isRetryable(preparedRequest.getMethod(), response.code())) {
+                long delay = policy.delayMillis(retry, response.header("Retry-After"));
+                if (delay >= 0) {
+                    logger.info("Request to {} answered {}, retrying in {} ms", preparedRequest.getPath(), response.code(), delay);
+                    response.body().close();
+                    this.backOff(preparedRequest, delay);
+                    continue;
+                }
+            }
+            return new ConcreteOneResponse(response, buffered, retry);
+        }
+    }
+
+    /**
+     * Reports the outcome of a request to the concurrency limiter. The latency of a request with a streamed body
+     * depends on its size and is not used.
+     *
+     * @param permit          permit of the request, may be null
+     * @param preparedRequest
+     * @param response        response, null if the request failed
+     * @param sent            System.nanoTime() when the request was sent
+     */
+    private static void finish(ConcurrencyLimiter.Permit permit, PreparedRequest preparedRequest, Response response, long sent) {
+        if (permit == null) {
+            return;
+        }
+        if (response == null) {
+            permit.onDropped();
+        } else if (response.code() == 429 || response.code() == 503) {
+            permit.onThrottled();
+        } else {
+            permit.onSuccess(preparedRequest.getRequestBody() == null ? System.nanoTime() - sent : -1);
+        }
+    }
+
+    /**
+     * Waits before a retry, returns early if the tag of the request is canceled.
+     *
+     * @param preparedRequest request which is sent again
+     * @param delayMillis     wait in milliseconds
+     * @throws IOException if the request was canceled or the thread interrupted
+     */
+    private void backOff(PreparedRequest preparedRequest, long delayMillis) throws IOException {
+        Object tag = preparedRequest.getTag();
+        long deadline = System.currentTimeMillis() + delayMillis;
+        synchronized (canceledTags) {
+            long remaining = delayMillis;
+            while (remaining > 0 && !isCanceled(tag)) {
+                try {
+                    canceledTags.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry " + preparedRequest.getPath());
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        if (isCanceled(tag)) {
+            throw new IOException("Canceled");
+        }
+        retries.incrementAndGet();
+    }
+
+    /**
+     * Perform several HTTP requests to the OneDrive API in as few round trips as possible.
+     * The requests are sent in JSON batches of {@link BatchRequest#getBatchSize()} requests.
+     *
+     * @param batchRequest
+     * @return one response per request, in the order the requests were added
+     * @throws IOException
+     * @throws OneDriveException if a batch was rejected or its reply can not be processed
+     */
+    public List<OneResponse> makeBatchRequest(BatchRequest batchRequest) throws IOException, OneDriveException {
+        List<OneResponse> responses = new ArrayList<>(batchRequest.size());
+        for (List<PreparedRequest> batch : batchRequest.getBatches()) {
+            logger.debug(String.format("sending batch of %d requests", batch.size()));
+            OneResponse response = makeRequest("$batch", PreparedRequestMethod.POST, BatchRequest.toJson(batch, this.baseUrl));
+            if (!response.wasSuccess()) {
+                throw new OneDriveException(response.toString());
+            }
+            responses.addAll(BatchRequest.parseResponses(response.getBodyAsString(), batch.size()));
+        }
+        return responses;
+    }
+
+    /**
+     * Perform the HTTP request to the OneDrive API without blocking the calling thread.
+     * The request is queued on the dispatcher of the HTTP client, see {@link #setMaxAsyncRequests(int, int)}.
+     * Cancelling the returned future cancels the HTTP call.
+     *
+     * @param preparedRequest
+     * @return future of the OneResponse
+     */
+    public ListenableFuture<OneResponse> makeRequestAsync(PreparedRequest preparedRequest) {
+        return this.makeRequestAsync(preparedRequest, new ResponseHandler<OneResponse>() {
+            @Override
+            public OneResponse handle(OneResponse response) {
+                return response;
+            }
+        });
+    }
+
+    /**
+     * Perform the HTTP request to the OneDrive API without blocking the calling thread
+     * and convert the response on the thread that received it.
+     *
+     * @param preparedRequest
+     * @param handler converts the response into the result of the future
+     * @return future of the converted response
+     */
+    private <T> ListenableFuture<T> makeRequestAsync(PreparedRequest preparedRequest, ResponseHandler<T> handler) {
+        final SettableFuture<T> result = SettableFuture.create();
+        final AsyncCall<T> call = new AsyncCall<>(preparedRequest, handler, result, this.retryPolicy, this.concurrencyLimiter);
+        call.send();
+
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (result.isCancelled()) {
+                    call.cancel();
+                }
+            }
+        }, MoreExecutors.directExecutor());
+
+        return result;
+    }
+
+    /**
+     * Asynchronous request including its retries. The waits before retries are scheduled, no thread is blocked.
+     * Only one attempt is in flight at a time, it is enqueued once the concurrency limiter admits it.
+     */
+    private class AsyncCall<T> implements Callback {
+        private final PreparedRequest preparedRequest;
+        private final ResponseHandler<T> handler;
+        private final SettableFuture<T> result;
+        private final RetryPolicy policy;
+        private final ConcurrencyLimiter limiter;
+        private volatile int retry;
+        private volatile Call call;
+        private volatile ListenableFuture<ConcurrencyLimiter.Permit> permit;
+        private volatile long sent;
+
+        AsyncCall(PreparedRequest preparedRequest, ResponseHandler<T> handler, SettableFuture<T> result,
+                  RetryPolicy policy, ConcurrencyLimiter limiter) {
+            this.preparedRequest = preparedRequest;
+            this.handler = handler;
+            this.result = result;
+            this.policy = policy;
+            this.limiter = limiter;
+        }
+
+        void send() {
+            if (isCanceled(preparedRequest.getTag())) {
+                result.setException(new IOException("Canceled"));
+                return;
+            }
+            try {
+                call = session.getClient().newCall(buildRequest(preparedRequest));
+            } catch (OneDriveAuthenticationException e) {
+                result.setException(e);
+                return;
+            }
+            if (limiter == null) {
+                this.enqueue();
+                return;
+            }
+            permit = limiter.acquireAsync(ConcurrencyLimiter.keyOf(preparedRequest.getPath()));
+            permit.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    enqueue();
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        private void enqueue() {
+            if (result.isCancelled()) {
+                finish(this.currentPermit(), preparedRequest, null, sent);
+                return;
+            }
+            sent = System.nanoTime();
+            call.enqueue(this);
+        }
+
+        /**
+         * @return permit of the current attempt, null if there is no limiter or the wait was given up
+         */
+        private ConcurrencyLimiter.Permit currentPermit() {
+            ListenableFuture<ConcurrencyLimiter.Permit> current = permit;
+            if (current == null || current.isCancelled()) {
+                return null;
+            }
+            return Futures.getUnchecked(current);
+        }
+
+        void cancel() {
+            ListenableFuture<ConcurrencyLimiter.Permit> waiting = permit;
+            if (waiting != null) {
+                waiting.cancel(false);
+            }
+            Call current = call;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onFailure(Request request, IOException e) {
+            finish(this.currentPermit(), preparedRequest, null, sent);
+            if (retry < policy.getMaxRetries() && !result.isDone() && !isCanceled(preparedRequest.getTag())
+                    && policy.isRetryable(preparedRequest.getMethod(), e)) {
+                logger.warn("Request to {} failed, retrying", preparedRequest.getPath(), e);
+                this.retryAfter(policy.delayMillis(retry, null));
+                return;
+            }
+            result.setException(e);
+        }
+
+        @Override
+        public void onResponse(Response response) throws IOException {
+            finish(this.currentPermit(), preparedRequest, response, sent);
+            if (retry < policy.getMaxRetries() && policy.isRetryable(preparedRequest.getMethod(), response.code())) {
+                long delay = policy.delayMillis(retry, response.header("Retry-After"));
+                if (delay >= 0) {
+                    logger.info("Request to {} answered {}, retrying in {} ms", preparedRequest.getPath(), response.code(), delay);
+                    response.body().close();
+                    this.retryAfter(delay);
+                    return;
+                }
+            }
+            try {
+                result.set(handler.handle(new ConcreteOneResponse(response, true, retry)));
+            } catch (Exception e) {
+                result.setException(e);
+            }
+        }
+
+        /**
+         * Fails the call without sending it again.
+         */
+        void abort(IOException e) {
+            result.setException(e);
+        }
+
+        private void retryAfter(long delayMillis) {
+            retry++;
+            waitingRetries.add(this);
+            retries.incrementAndGet();
+            try {
+                retryScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a call which was already failed by disconnect is not sent again
+                        if (waitingRetries.remove(AsyncCall.this)) {
+                            send();
+                        }
+                    }
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                if (waitingRetries.remove(this)) {
+                    this.abort(new IOException("Disconnected before the request could be retried", e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Limits how many asynchronous requests are executed at the same time, further requests are queued.
+     * All requests of the SDK go to the same host, so maxRequestsPerHost is usually the effective limit.
+     *
+     * @param maxRequests        total number of concurrently executed requests
+     * @param maxRequestsPerHost number of concurrently executed requests per host
+     */
+    public void setMaxAsyncRequests(int maxRequests, int maxRequestsPerHost) {
+        Dispatcher dispatcher = session.getClient().getDispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+    }
+
+    /**
+     * Builds the HTTP request for the OneDrive API including the authorization.
+     *
+     * @param preparedRequest
+     * @return Request
+     * @throws OneDriveAuthenticationException if the session is no longer valid
+     */
+    private Request buildRequest(PreparedRequest preparedRequest) throws OneDriveAuthenticationException {
         if(!this.session.isAuthenticated()){
             throw new OneDriveAuthenticationException("Session is no longer valid. Look for a failure of the refresh Thread in the log.");
         }
@@ -386,17 +1247,23 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
 
         if (preparedRequest.getBody() != null) {
             body = RequestBody.create(null, preparedRequest.getBody());
+        } else if (preparedRequest.getRequestBody() != null) {
+            body = preparedRequest.getRequestBody();
         }
 
         if (isCompleteURL(preparedRequest.getPath())) {
             url = preparedRequest.getPath();
         } else {
-            url = String.format("%s%s?access_token=%s", this.baseUrl, preparedRequest.getPath(), session.getAccessToken());
+            String separator = preparedRequest.getPath().contains("?") ? "&" : "?";
+            url = String.format("%s%s%saccess_token=%s", this.baseUrl, preparedRequest.getPath(), separator, session.getAccessToken());
         }
 
         logger.debug(String.format("making request to %s",url));
 
         Request.Builder builder = new Request.Builder().method(preparedRequest.getMethod(), body).url(url);
+        if (preparedRequest.getTag() != null) {
+            builder.tag(preparedRequest.getTag());
+        }
 
         for (String key : preparedRequest.getHeader().keySet()) {
             builder.addHeader(key, preparedRequest.getHeader().get(key));
@@ -404,10 +1271,7 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
 
         //Add auth permanently to header with redirection
         builder.header("Authorization", "bearer " + session.getAccessToken());
-        Request request = builder.build();
-
-        Response getDrivesResponse = session.getClient().newCall(request).execute();
-        return new ConcreteOneResponse(getDrivesResponse);
+        return builder.build();
     }
 
     /**
@@ -434,12 +1298,49 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
      * @throws OneDriveException
      */
     public OneFolder createFolder(OneFolder folder, String name, ConflictBehavior behavior) throws IOException, OneDriveException {
+        return this.toCreatedFolder(this.makeRequest(this.prepareCreateFolder(folder, name, behavior)), folder.getId());
+    }
+
+    /**
+     * Asynchronously create a new folder in OneDrive.
+     *
+     * @param folder the parent folder
+     * @param name   name of the new folder
+     * @return future of the newly created folder
+     */
+    public ListenableFuture<OneFolder> createFolderAsync(OneFolder folder, String name) {
+        return createFolderAsync(folder, name, ConflictBehavior.RENAME);
+    }
+
+    /**
+     * Asynchronously create a new folder in OneDrive and define the behavior on folder name conflict.
+     *
+     * @param folder   the parent folder
+     * @param name
+     * @param behavior
+     * @return future of the newly created folder
+     */
+    public ListenableFuture<OneFolder> createFolderAsync(final OneFolder folder, String name, ConflictBehavior behavior) {
+        return this.makeRequestAsync(this.prepareCreateFolder(folder, name, behavior), new ResponseHandler<OneFolder>() {
+            @Override
+            public OneFolder handle(OneResponse response) throws OneDriveException {
+                return toCreatedFolder(response, folder.getId());
+            }
+        });
+    }
+
+    private PreparedRequest prepareCreateFolder(OneFolder folder, String name, ConflictBehavior behavior) {
         String requestURL = String.format("drive/items/%s/children", folder.getId());
 
         String createFolderJson = "{\"name\": \"" + name + "\", \"folder\": { }, \"@name.conflictBehavior\": \"" + behavior.name + "\"}";
 
-        OneResponse response = makeRequest(requestURL, PreparedRequestMethod.POST, createFolderJson);
+        PreparedRequest request = new PreparedRequest(requestURL, PreparedRequestMethod.POST);
+        request.addHeader("Content-Type", "application/json");
+        request.setBody(createFolderJson.getBytes());
+        return request;
+    }
 
+    private OneFolder toCreatedFolder(OneResponse response, String parentId) throws OneDriveException {
         if (response.getStatusCode() == 201) {
             ConcreteOneFolder createdFolder = null;
             try {
@@ -448,6 +1349,10 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
                 throw new OneDriveException("API - response could not be processed", e);
             }
             createdFolder.setApi(this);
+            PathCache paths = this.pathCache;
+            if (paths != null) {
+                paths.invalidateNewChild(parentId, createdFolder);
+            }
             return createdFolder;
         } else {
             throw new OneDriveException(response.toString());
@@ -484,9 +1389,37 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
         String requestURL = String.format("drive/items/%s", oneItem.getId());
 
         PreparedRequest request = new PreparedRequest(requestURL, PreparedRequestMethod.DELETE);
-        OneResponse response = this.makeRequest(request);
+        return this.toDeleted(this.makeRequest(request), oneItem);
+    }
+
+    /**
+     * Asynchronously deletes a OneDriveItem form OneDrive.
+     *
+     * @param oneItem to delete
+     * @return future that is true on success
+     */
+    public ListenableFuture<Boolean> deleteItemAsync(final OneItem oneItem) {
+        String requestURL = String.format("drive/items/%s", oneItem.getId());
+
+        PreparedRequest request = new PreparedRequest(requestURL, PreparedRequestMethod.DELETE);
+        return this.makeRequestAsync(request, new ResponseHandler<Boolean>() {
+            @Override
+            public Boolean handle(OneResponse response) throws OneDriveException {
+                return toDeleted(response, oneItem);
+            }
+        });
+    }
 
+    private boolean toDeleted(OneResponse response, OneItem oneItem) throws OneDriveException {
         if (response.getStatusCode() == 204) {
+            ItemCache cache = this.itemCache;
+            if (cache != null) {
+                cache.invalidate(oneItem.getId());
+            }
+            PathCache paths = this.pathCache;
+            if (paths != null) {
+                paths.invalidateItem(oneItem);
+            }
             return true;
         } else {
             throw new OneDriveException(response.toString());
@@ -536,17 +1469,44 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
      * @throws IOException
      */
     public byte[] download(String fileID) throws IOException, OneDriveAuthenticationException {
+        return openDownload(fileID).getBodyAsBytes();
+    }
+
+    /**
+     * Opens the content of a file on OneDrive without reading it into memory.
+     * The body of the returned response must be consumed through {@link OneResponse#getBodyAsStream()} and closed.
+     *
+     * @param fileID the OneDrive file id
+     * @return the streamed content response
+     * @throws IOException
+     */
+    public OneResponse openDownload(String fileID) throws IOException, OneDriveAuthenticationException {
+        PreparedRequest contentRequest = new PreparedRequest(resolveDownloadLocation(fileID), PreparedRequestMethod.GET);
+        return makeStreamingRequest(contentRequest);
+    }
+
+    /**
+     * Resolves the pre-authenticated URL the content of a file is served from.
+     * The URL can be requested several times, e.g. with different Range headers.
+     *
+     * @param fileID the OneDrive file id
+     * @return absolute content url
+     * @throws IOException if OneDrive does not redirect to the content
+     */
+    public String resolveDownloadLocation(String fileID) throws IOException, OneDriveAuthenticationException {
         session.getClient().setFollowRedirects(false);
 
         String url = "drive/items/%s/content";
         url = String.format(url, fileID);
 
         PreparedRequest downloadRequest = new PreparedRequest(url, PreparedRequestMethod.GET);
-        OneResponse getResponse = makeRequest(downloadRequest);
-        PreparedRequest contentRequest = new PreparedRequest(getResponse.getHeader("Location"), PreparedRequestMethod.GET);
-        OneResponse contentResponse = makeRequest(contentRequest);
-
-        return contentResponse.getBodyAsBytes();
+        OneResponse response = makeRequest(downloadRequest);
+        String location = response.getHeader("Location");
+        if (location == null) {
+            throw new IOException(String.format("Content of %s could not be resolved, status %d",
+                    fileID, response.getStatusCode()));
+        }
+        return location;
     }
 
     /**
@@ -627,6 +1587,29 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
      * @throws InterruptedException
      */
     public OneFile move(String id, String destinationId) throws IOException, OneDriveException, ParseException, InterruptedException {
+        ItemCache cache = this.itemCache;
+        return this.move(id, cache == null ? null : cache.get(id, null), destinationId);
+    }
+
+    /**
+     * Move a file in OneDrive.
+     *
+     * @param item          the file to be moved
+     * @param destinationId id of the target folder
+     * @return OneFile
+     * @throws IOException
+     * @throws OneDriveException
+     * @throws ParseException
+     * @throws InterruptedException
+     */
+    public OneFile move(OneItem item, String destinationId) throws IOException, OneDriveException, ParseException, InterruptedException {
+        return this.move(item.getId(), item, destinationId);
+    }
+
+    /**
+     * @param previous the item before the move, its path is removed from the path cache, may be null
+     */
+    private OneFile move(String id, OneItem previous, String destinationId) throws IOException, OneDriveException, ParseException, InterruptedException {
         ParentReference reference = new ParentReference();
         reference.setId(destinationId);
 
@@ -645,11 +1628,28 @@ public class ConcreteOneDriveSDK implements OneDriveSDK {
             throw new OneDriveException("Request error: " + response.getStatusCode() + " " + error);
         }
 
-        return (OneFile) ConcreteOneFile.fromJSON(response.getBodyAsString()).setApi(this);
+        OneFile moved = (OneFile) ConcreteOneFile.fromJSON(response.getBodyAsString()).setApi(this);
+        PathCache paths = this.pathCache;
+        if (paths != null) {
+            if (previous != null) {
+                paths.invalidateItem(previous);
+            } else {
+                paths.invalidateItem(id);
+            }
+            paths.invalidateNewChild(destinationId, (OneItem) moved);
+        }
+        return moved;
     }
 
     @Override
     public void startSessionAutoRefresh() {
         this.session.startRefreshThread();
     }
+
+    /**
+     * Converts the response of an asynchronous request into the result of its future.
+     */
+    private interface ResponseHandler<T> {
+        T handle(OneResponse response) throws IOException, OneDriveException;
+    }
 }
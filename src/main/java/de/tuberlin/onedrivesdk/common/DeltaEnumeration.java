@@ -0,0 +1,164 @@
+package de.tuberlin.onedrivesdk.common;
+
+import de.tuberlin.onedrivesdk.OneDriveException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Changes below a folder or in a drive since an earlier enumeration, read from the view.delta of the OneDrive API.
+ * Without token every item is returned once, with the token of an earlier run only the items which were
+ * created, changed or deleted since (see {@link OneItem#isDeleted()}). An item can appear more than once,
+ * the last occurrence is its current state.
+ * The pages are requested while the items are consumed. The new token is only known, and saved to the store,
+ * once the last item was consumed: an interrupted run starts again from the old token.
+ * If the server no longer accepts the old token the enumeration starts over without it, see {@link #isResync()}.
+ */
+public class DeltaEnumeration implements Iterable<OneItem> {
+
+    private static final Logger logger = LogManager.getLogger(DeltaEnumeration.class);
+
+    private final ConcreteOneDriveSDK api;
+    private final String deltaPath;
+    private final DeltaTokenStore store;
+    private final String key;
+    private String startToken;
+    private volatile String deltaToken;
+    private volatile boolean resync;
+    private boolean started;
+
+    /**
+     * @param api       sdk
+     * @param deltaPath api path of the view.delta, e.g. "drive/items/{id}/view.delta"
+     * @param token     token of an earlier enumeration, null to enumerate everything
+     * @param store     store the new token is saved to, may be null
+     * @param key       key of the token in the store
+     */
+    DeltaEnumeration(ConcreteOneDriveSDK api, String deltaPath, String token, DeltaTokenStore store, String key) {
+        this.api = api;
+        this.deltaPath = deltaPath;
+        this.startToken = token;
+        this.store = store;
+        this.key = key;
+    }
+
+    /**
+     * Starts the enumeration, the first page is requested when the iterator is first asked for an item.
+     * An enumeration can only be iterated once. If a page can not be fetched or the token not be saved,
+     * hasNext() and next() throw an IllegalStateException wrapping the IOException or OneDriveException.
+     *
+     * @return iterator
+     */
+    @Override
+    public synchronized Iterator<OneItem> iterator() {
+        if (started) {
+            throw new IllegalStateException("A delta enumeration can only be iterated once");
+        }
+        started = true;
+        return new DeltaIterator();
+    }
+
+    /**
+     * @return token of the enumeration this one continues, null if it enumerates everything
+     */
+    public String getStartToken() {
+        return startToken;
+    }
+
+    /**
+     * @return token of this enumeration, null until its last item was consumed
+     */
+    public String getDeltaToken() {
+        return deltaToken;
+    }
+
+    /**
+     * @return true if the start token was rejected and everything is enumerated again,
+     * items deleted in the meantime are then not reported
+     */
+    public boolean isResync() {
+        return resync;
+    }
+
+    private String firstPageUrl() {
+        if (startToken == null) {
+            return deltaPath;
+        }
+        try {
+            return deltaPath + "?token=" + URLEncoder.encode(startToken, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class DeltaIterator implements Iterator<OneItem> {
+
+        private Iterator<OneItem> currentPage;
+        private String nextUrl = firstPageUrl();
+        private String pendingToken;
+
+        @Override
+        public boolean hasNext() {
+            while ((currentPage == null || !currentPage.hasNext()) && nextUrl != null) {
+                OneItemPage page = this.fetch(nextUrl);
+                nextUrl = page.hasNextPage() ? page.getNextLink() : null;
+                pendingToken = page.getDeltaToken();
+                currentPage = page.getItems().iterator();
+            }
+            boolean more = currentPage != null && currentPage.hasNext();
+            if (!more && pendingToken != null) {
+                this.complete(pendingToken);
+                pendingToken = null;
+            }
+            return more;
+        }
+
+        @Override
+        public OneItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return currentPage.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Items can not be removed from a delta enumeration");
+        }
+
+        private OneItemPage fetch(String url) {
+            try {
+                OneItemPage page = api.getDeltaPage(url);
+                if (page == null && startToken != null) {
+                    logger.warn("Delta token of {} is no longer valid, enumerating everything again", deltaPath);
+                    startToken = null;
+                    resync = true;
+                    page = api.getDeltaPage(firstPageUrl());
+                }
+                if (page == null) {
+                    throw new OneDriveException("Delta enumeration of " + deltaPath + " was rejected without token");
+                }
+                return page;
+            } catch (IOException | OneDriveException e) {
+                throw new IllegalStateException("Could not fetch the next page of changes", e);
+            }
+        }
+
+        private void complete(String token) {
+            deltaToken = token;
+            if (store == null) {
+                return;
+            }
+            try {
+                store.save(key, token);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not save the delta token of " + deltaPath, e);
+            }
+        }
+    }
+}
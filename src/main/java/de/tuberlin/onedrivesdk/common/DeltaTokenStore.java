@@ -0,0 +1,27 @@
+package de.tuberlin.onedrivesdk.common;
+
+import java.io.IOException;
+
+/**
+ * Keeps the cursor of delta enumerations between runs, so that the next run only fetches the changes since.
+ */
+public interface DeltaTokenStore {
+
+    /**
+     * Gets the token saved for an enumeration.
+     *
+     * @param key identifies the enumerated folder or drive
+     * @return token or null if the enumeration has not completed before
+     * @throws IOException if the store can not be read
+     */
+    String load(String key) throws IOException;
+
+    /**
+     * Saves the token of a completed enumeration.
+     *
+     * @param key   identifies the enumerated folder or drive
+     * @param token cursor returned with the last page
+     * @throws IOException if the store can not be written
+     */
+    void save(String key, String token) throws IOException;
+}
@@ -0,0 +1,50 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps each delta token in a small file of a directory, named after the hash of its key.
+ * A token is replaced atomically, a crash while saving leaves the previous token in place.
+ */
+public class FileDeltaTokenStore implements DeltaTokenStore {
+
+    private final File directory;
+
+    /**
+     * @param directory directory of the token files, created when the first token is saved
+     */
+    public FileDeltaTokenStore(File directory) {
+        this.directory = checkNotNull(directory);
+    }
+
+    @Override
+    public String load(String key) throws IOException {
+        File record = this.recordOf(key);
+        if (!record.isFile()) {
+            return null;
+        }
+        String token = new String(Files.readAllBytes(record.toPath()), StandardCharsets.UTF_8).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    @Override
+    public void save(String key, String token) throws IOException {
+        File record = this.recordOf(key);
+        Files.createDirectories(directory.toPath());
+        File temp = new File(record.getPath() + ".tmp");
+        Files.write(temp.toPath(), token.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), record.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File recordOf(String key) {
+        return new File(directory, Hashing.sha1().hashString(key, StandardCharsets.UTF_8).toString() + ".token");
+    }
+}
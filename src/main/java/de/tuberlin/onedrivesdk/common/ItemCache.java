@@ -0,0 +1,106 @@
+package de.tuberlin.onedrivesdk.common;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Item metadata of recent requests, keyed by item id and validated by the eTag of the item.
+ * Before an item is fetched again its cached eTag is sent as If-None-Match, on 304 Not Modified
+ * the cached item is returned without parsing. The least recently used items are evicted once
+ * the cache holds more than its maximum number of items.
+ */
+public class ItemCache {
+
+    public static final int DEFAULT_MAX_ITEMS = 1024;
+
+    private final Map<String, OneItem> items;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ItemCache() {
+        this(DEFAULT_MAX_ITEMS);
+    }
+
+    /**
+     * @param maxItems number of items kept
+     */
+    public ItemCache(int maxItems) {
+        checkArgument(maxItems > 0, "cache must hold at least one item");
+        this.items = new LruMap<>(maxItems);
+    }
+
+    /**
+     * Gets a cached item which still has to be validated.
+     *
+     * @param id   item id
+     * @param type expected kind of item, null for any
+     * @return cached item or null if there is none with an eTag
+     */
+    OneItem get(String id, Class<? extends OneItem> type) {
+        OneItem item;
+        synchronized (items) {
+            item = items.get(id);
+        }
+        if (item == null || item.getETag() == null || item.getETag().isEmpty() || (type != null && !type.isInstance(item))) {
+            return null;
+        }
+        return item;
+    }
+
+    /**
+     * Records an item which was fetched in full.
+     */
+    void put(OneItem item) {
+        misses.incrementAndGet();
+        synchronized (items) {
+            items.put(item.getId(), item);
+        }
+    }
+
+    /**
+     * Records that a cached item was confirmed by the server.
+     */
+    void validated(OneItem item) {
+        hits.incrementAndGet();
+        item.setLastRefresh(System.currentTimeMillis());
+    }
+
+    /**
+     * Removes an item, e.g. after it was deleted.
+     *
+     * @param id item id
+     */
+    public void invalidate(String id) {
+        synchronized (items) {
+            items.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (items) {
+            items.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (items) {
+            return items.size();
+        }
+    }
+
+    /**
+     * @return number of requests answered with 304 and served from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests which fetched the item in full
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,25 @@
+package de.tuberlin.onedrivesdk.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map in access order which evicts the least recently used entry once it holds more than its maximum.
+ * It is not synchronized, the caches using it lock it themselves.
+ */
+class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxEntries;
+
+    LruMap(int maxEntries) {
+        super(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+    }
+}
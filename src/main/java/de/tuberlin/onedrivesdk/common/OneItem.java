@@ -1,22 +1,17 @@
 package de.tuberlin.onedrivesdk.common;
 
-import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import de.tuberlin.onedrivesdk.folder.OneFolder;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.drive.DriveUser;
-import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
 import de.tuberlin.onedrivesdk.file.OneFile;
-import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -97,6 +92,11 @@ public abstract class OneItem {
     @SerializedName("@content.downloadUrl")
     protected String downloadUrl;
 
+    /**
+     * Present if the item was deleted, only set on items of a delta enumeration.
+     */
+    protected HashMap<String, Object> deleted;
+
     /**
      * A timestamp of the last refresh.
      */
@@ -111,19 +111,7 @@ public abstract class OneItem {
      * @throws OneDriveException if the JSON contains an OneDrive Error object from the API
      */
     public static OneItem fromJSON(String json) throws ParseException, OneDriveException {
-        JSONObject root = getJsonObject(json);
-
-        OneDriveError error;
-        if ((error = OneDriveError.parseError(json)) != null) {
-            throw new OneDriveException(error.toString());
-        }
-
-        Gson gson = new Gson();
-        if (root.containsKey("file")) {
-            return gson.fromJson(json, ConcreteOneFile.class).setLastRefresh(System.currentTimeMillis());
-        } else {
-            return gson.fromJson(json, ConcreteOneFolder.class).setLastRefresh(System.currentTimeMillis());
-        }
+        return OneItemJsonDecoder.readItem(new StringReader(json));
     }
 
     /**
@@ -148,46 +136,33 @@ public abstract class OneItem {
      * @throws OneDriveException if the json dose not contain a 'value' attribute
      */
     public static List<OneItem> parseItemsFromJson(String json, OneItemType type) throws ParseException, OneDriveException {
-        ArrayList<OneItem> itemList = new ArrayList<>();
-
-        JSONObject root = getJsonObject(json);
-
-        if (root.containsKey("value")) {
-            JSONArray values = (JSONArray) root.get("value");
-            for (Object object : values) {
-                JSONObject itemJson = (JSONObject) object;
-                OneItem item = OneItem.fromJSON(itemJson.toJSONString());
-                switch (type) {
-                    case FILE:
-                        if (item instanceof OneFile) itemList.add(item);
-                        break;
-                    case FOLDER:
-                        if (item instanceof OneFolder) itemList.add(item);
-                        break;
-                    case ALL:
-                        itemList.add(item);
-                }
-
-            }
-        } else {
-            throw new OneDriveException("Cannot parse items from JSON. Missing argument 'value'.");
-        }
-
-        return itemList;
+        return OneItem.parseItemPageFromJson(json, type).getItems();
     }
 
     /**
-     * Parse JSON from string and return the JSONObject
+     * Parse a single page of a (possibly paged) item collection from JSON.
      *
-     * @param json from the OneDrive API
-     * @return JSONObject
+     * @param json JSON from the OneDrive API
+     * @param type OneItemType, can be used to define which type of items should be parsed
+     * @return the items of this page together with the link to the next page, if any
      * @throws ParseException if the JSON can not be parsed
+     * @throws OneDriveException if the json dose not contain a 'value' attribute
+     */
+    public static OneItemPage parseItemPageFromJson(String json, OneItemType type) throws ParseException, OneDriveException {
+        return OneItem.parseItemPageFromJson(new StringReader(json), type);
+    }
+
+    /**
+     * Parse a single page of a (possibly paged) item collection while reading it.
+     * The JSON is read exactly once, no intermediate String of the whole response is needed.
+     *
+     * @param json reader providing the JSON from the OneDrive API
+     * @param type OneItemType, can be used to define which type of items should be parsed
+     * @return the items of this page together with the link to the next page, if any
+     * @throws OneDriveException if the JSON can not be parsed or dose not contain a 'value' attribute
      */
-    private static JSONObject getJsonObject(String json) throws ParseException {
-        JSONParser parser = new JSONParser();
-        JSONObject root;
-        root = (JSONObject) parser.parse(json);
-        return root;
+    public static OneItemPage parseItemPageFromJson(Reader json, OneItemType type) throws OneDriveException {
+        return OneItemJsonDecoder.readPage(json, type);
     }
 
     /**
@@ -397,6 +372,15 @@ public abstract class OneItem {
         }
     }
 
+    /**
+     * Is deleted, only items of a delta enumeration can be deleted.
+     *
+     * @return boolean
+     */
+    public boolean isDeleted() {
+        return deleted != null;
+    }
+
     /**
      * Is file.
      *
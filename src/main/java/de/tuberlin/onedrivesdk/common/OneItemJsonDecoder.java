@@ -0,0 +1,127 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for item responses of the OneDrive API.
+ * The response is tokenized exactly once. Each element of the 'value' array is read into a JsonObject
+ * first, because its 'file' or 'folder' facet decides the target type and may follow all other properties.
+ * The tree of a single item is then bound to a ConcreteOneFile or ConcreteOneFolder and dropped,
+ * so the page as a whole is never held as a tree.
+ */
+class OneItemJsonDecoder {
+
+    private static final Gson gson = new Gson();
+    private static final TypeAdapter<JsonElement> elementAdapter = gson.getAdapter(JsonElement.class);
+    private static final TypeAdapter<ConcreteOneFile> fileAdapter = gson.getAdapter(ConcreteOneFile.class);
+    private static final TypeAdapter<ConcreteOneFolder> folderAdapter = gson.getAdapter(ConcreteOneFolder.class);
+    private static final TypeAdapter<InnerError> errorAdapter = gson.getAdapter(InnerError.class);
+
+    private OneItemJsonDecoder() {
+    }
+
+    /**
+     * Decodes a single item.
+     *
+     * @param json reader positioned at the item object
+     * @return ConcreteOneFile or ConcreteOneFolder
+     * @throws OneDriveException if the JSON is malformed or contains an OneDrive Error object
+     */
+    static OneItem readItem(Reader json) throws OneDriveException {
+        try {
+            JsonObject root = elementAdapter.read(new JsonReader(json)).getAsJsonObject();
+            if (root.has("error")) {
+                throw new OneDriveException(toError(errorAdapter.fromJsonTree(root.get("error"))).toString());
+            }
+            return bind(root);
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            throw new OneDriveException("API - response could not be processed", e);
+        }
+    }
+
+    /**
+     * Decodes one page of an item collection.
+     *
+     * @param json reader positioned at the collection object
+     * @param type which kind of items should be kept, all others are skipped without being bound
+     * @return page
+     * @throws OneDriveException if the JSON is malformed, misses the 'value' attribute or contains an OneDrive Error object
+     */
+    static OneItemPage readPage(Reader json, OneItemType type) throws OneDriveException {
+        List<OneItem> items = null;
+        String nextLink = null;
+        String deltaToken = null;
+
+        try {
+            JsonReader reader = new JsonReader(json);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("value".equals(name)) {
+                    items = readItems(reader, type);
+                } else if (OneItemPage.NEXT_LINK.equals(name) && reader.peek() == JsonToken.STRING) {
+                    nextLink = reader.nextString();
+                } else if (OneItemPage.DELTA_TOKEN.equals(name) && reader.peek() == JsonToken.STRING) {
+                    deltaToken = reader.nextString();
+                } else if ("error".equals(name)) {
+                    throw new OneDriveException(toError(errorAdapter.read(reader)).toString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            throw new OneDriveException("API - response could not be processed", e);
+        }
+
+        if (items == null) {
+            throw new OneDriveException("Cannot parse items from JSON. Missing argument 'value'.");
+        }
+        return new OneItemPage(items, nextLink, deltaToken);
+    }
+
+    private static List<OneItem> readItems(JsonReader reader, OneItemType type) throws IOException {
+        List<OneItem> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            // the facet is only known once the whole item has been read
+            JsonObject itemJson = elementAdapter.read(reader).getAsJsonObject();
+            boolean isFile = itemJson.has("file");
+            if (type == OneItemType.ALL || (type == OneItemType.FILE) == isFile) {
+                items.add(bind(itemJson));
+            }
+        }
+        reader.endArray();
+        return items;
+    }
+
+    private static OneItem bind(JsonObject itemJson) {
+        OneItem item;
+        if (itemJson.has("file")) {
+            item = fileAdapter.fromJsonTree(itemJson);
+        } else {
+            item = folderAdapter.fromJsonTree(itemJson);
+        }
+        return item.setLastRefresh(System.currentTimeMillis());
+    }
+
+    private static OneDriveError toError(InnerError inner) {
+        OneDriveError error = new OneDriveError();
+        error.error = inner;
+        return error;
+    }
+}
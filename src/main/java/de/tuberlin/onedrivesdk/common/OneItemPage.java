@@ -0,0 +1,70 @@
+package de.tuberlin.onedrivesdk.common;
+
+import java.util.List;
+
+/**
+ * One page of a item collection returned by the OneDrive API.
+ * Large collections are split by the server, the remaining items can be fetched from the next link.
+ */
+public class OneItemPage {
+
+    /**
+     * The JSON attribute holding the URL of the following page.
+     */
+    public static final String NEXT_LINK = "@odata.nextLink";
+
+    /**
+     * The JSON attribute holding the cursor of the last page of a delta enumeration.
+     */
+    public static final String DELTA_TOKEN = "@delta.token";
+
+    private final List<OneItem> items;
+    private final String nextLink;
+    private final String deltaToken;
+
+    public OneItemPage(List<OneItem> items, String nextLink) {
+        this(items, nextLink, null);
+    }
+
+    public OneItemPage(List<OneItem> items, String nextLink, String deltaToken) {
+        this.items = items;
+        this.nextLink = nextLink;
+        this.deltaToken = deltaToken;
+    }
+
+    /**
+     * Gets the items of this page.
+     *
+     * @return items
+     */
+    public List<OneItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the complete URL of the next page.
+     *
+     * @return next link or null if this is the last page
+     */
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    /**
+     * Determines whether the server has more items after this page.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNextPage() {
+        return nextLink != null && !nextLink.isEmpty();
+    }
+
+    /**
+     * Gets the cursor a later delta enumeration continues from.
+     *
+     * @return token or null if this is not the last page of a delta enumeration
+     */
+    public String getDeltaToken() {
+        return deltaToken;
+    }
+}
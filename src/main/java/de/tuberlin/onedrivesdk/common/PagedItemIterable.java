@@ -0,0 +1,103 @@
+package de.tuberlin.onedrivesdk.common;
+
+import de.tuberlin.onedrivesdk.OneDriveException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy view on a paged item collection.
+ * Every iterator walks the collection page by page by following the '@odata.nextLink' of each page.
+ * While the current page is consumed the next one is already fetched in the background,
+ * so at most two pages are held in memory regardless of the size of the collection.
+ */
+class PagedItemIterable implements Iterable<OneItem> {
+
+    private static final Logger logger = LogManager.getLogger(PagedItemIterable.class);
+
+    private final ConcreteOneDriveSDK api;
+    private final ExecutorService executor;
+    private final String firstPageUrl;
+    private final OneItemType type;
+
+    PagedItemIterable(ConcreteOneDriveSDK api, ExecutorService executor, String firstPageUrl, OneItemType type) {
+        this.api = api;
+        this.executor = executor;
+        this.firstPageUrl = firstPageUrl;
+        this.type = type;
+    }
+
+    /**
+     * Starts a new walk over the collection, the first page is requested immediately.
+     * If a page can not be fetched, hasNext() and next() throw an IllegalStateException
+     * wrapping the IOException or OneDriveException.
+     *
+     * @return iterator
+     */
+    @Override
+    public Iterator<OneItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<OneItem> {
+
+        private Iterator<OneItem> currentPage;
+        private Future<OneItemPage> nextPage;
+
+        PageIterator() {
+            this.nextPage = fetch(firstPageUrl);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((currentPage == null || !currentPage.hasNext()) && nextPage != null) {
+                OneItemPage page = await(nextPage);
+                nextPage = page.hasNextPage() ? fetch(page.getNextLink()) : null;
+                currentPage = page.getItems().iterator();
+            }
+            return currentPage != null && currentPage.hasNext();
+        }
+
+        @Override
+        public OneItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return currentPage.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Items can not be removed from a listing, use OneItem.delete()");
+        }
+
+        private Future<OneItemPage> fetch(final String url) {
+            logger.debug("prefetching page {}", url);
+            return executor.submit(new Callable<OneItemPage>() {
+                @Override
+                public OneItemPage call() throws IOException, OneDriveException {
+                    return api.getItemPage(url, type);
+                }
+            });
+        }
+
+        private OneItemPage await(Future<OneItemPage> page) {
+            try {
+                return page.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                page.cancel(true);
+                throw new IllegalStateException("Interrupted while waiting for the next page", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not fetch the next page of items", e.getCause());
+            }
+        }
+    }
+}
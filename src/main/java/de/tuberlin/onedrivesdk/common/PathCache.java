@@ -0,0 +1,286 @@
+package de.tuberlin.onedrivesdk.common;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Resolved paths of getFolderByPath and getFileByPath, mapped to the id and eTag of the item.
+ * Within the time to live a path resolves locally if the item itself is still in the {@link ItemCache}.
+ * Otherwise the item is fetched by id with its eTag, only an unchanged item confirms the path.
+ * Paths which did not exist are remembered for a shorter time. Creating, moving and deleting items
+ * through the SDK removes the affected paths and everything below them.
+ * Paths are compared case-insensitively like in OneDrive, the least recently used paths are evicted first.
+ */
+public class PathCache {
+
+    public static final int DEFAULT_MAX_PATHS = 4096;
+    public static final long DEFAULT_TTL_MILLIS = 60 * 1000;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 10 * 1000;
+
+    private final Map<String, Resolution> entries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PathCache() {
+        this(DEFAULT_MAX_PATHS, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxPaths    number of paths kept
+     * @param ttl         time a resolved path is used without asking the server
+     * @param negativeTtl time a missing path is reported without asking the server
+     * @param unit        unit of the times
+     */
+    public PathCache(int maxPaths, long ttl, long negativeTtl, TimeUnit unit) {
+        checkArgument(maxPaths > 0, "cache must hold at least one path");
+        checkArgument(ttl >= 0 && negativeTtl >= 0, "times to live must not be negative");
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.entries = new LruMap<>(maxPaths);
+    }
+
+    /**
+     * Normalizes a path, e.g. "/Archive/2026/" and "archive/2026" both become "/archive/2026", the root is "".
+     *
+     * @param path path within the drive
+     * @return normalized path
+     */
+    static String normalize(String path) {
+        StringBuilder normalized = new StringBuilder(path.length() + 1);
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                normalized.append('/').append(segment.toLowerCase(Locale.ROOT));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Gets the path of an item from its parent reference, e.g. "/drive/root:/archive" and "2026" become "/archive/2026".
+     *
+     * @param item item from the API
+     * @return normalized path or null if the item has no parent path
+     */
+    static String pathOf(OneItem item) {
+        if (item.parentReference == null || item.parentReference.getPath() == null) {
+            return null;
+        }
+        String parent = item.parentReference.getPath();
+        int root = parent.indexOf("root:");
+        if (root == -1) {
+            return null;
+        }
+        return normalize(parent.substring(root + "root:".length()) + "/" + item.getName());
+    }
+
+    Resolution get(String drive, String path) {
+        synchronized (entries) {
+            return entries.get(key(drive, path));
+        }
+    }
+
+    /**
+     * Records a resolved path.
+     */
+    void put(String drive, String path, OneItem item) {
+        misses.incrementAndGet();
+        synchronized (entries) {
+            entries.put(key(drive, path), new Resolution(normalize(path), item.getId(), item.getETag(), null, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Records a path which does not exist.
+     *
+     * @param error message of the error the API answered with
+     */
+    void putMissing(String drive, String path, String error) {
+        misses.incrementAndGet();
+        synchronized (entries) {
+            entries.put(key(drive, path), new Resolution(normalize(path), null, null, error, System.nanoTime() + negativeTtlNanos));
+        }
+    }
+
+    /**
+     * Records that a path was answered locally.
+     */
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Records that the item of a path was confirmed by its unchanged eTag.
+     */
+    void revalidated(Resolution entry) {
+        revalidations.incrementAndGet();
+        entry.expires = System.nanoTime() + ttlNanos;
+    }
+
+    /**
+     * Removes a path and all paths below it, in all drives.
+     *
+     * @param path path within the drive
+     */
+    public void invalidatePath(String path) {
+        String normalized = normalize(path);
+        synchronized (entries) {
+            for (Iterator<Resolution> it = entries.values().iterator(); it.hasNext(); ) {
+                if (isWithin(it.next().path, normalized)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every path which resolved to the item and all paths below them.
+     *
+     * @param id item id
+     */
+    public void invalidateItem(String id) {
+        for (String path : this.pathsOf(id)) {
+            this.invalidatePath(path);
+        }
+    }
+
+    /**
+     * Removes the paths of an item which was deleted or moved away and all paths below them.
+     * Besides the paths cached for the item itself its path is taken from its parent reference,
+     * paths below a folder which was only fetched by id are found that way.
+     *
+     * @param item the item in its state before the change
+     */
+    void invalidateItem(OneItem item) {
+        List<String> paths = this.pathsOf(item.getId());
+        String path = pathOf(item);
+        if (path != null) {
+            paths.add(path);
+        }
+        if (paths.isEmpty() && !item.isFile()) {
+            // the paths below the folder are unknown, none of them can be trusted
+            this.clear();
+            return;
+        }
+        for (String removed : paths) {
+            this.invalidatePath(removed);
+        }
+    }
+
+    /**
+     * Removes the paths a new or moved item may have been cached as missing under.
+     *
+     * @param parentId id of the new parent, may be null
+     * @param item     the created or moved item
+     */
+    void invalidateNewChild(String parentId, OneItem item) {
+        String path = pathOf(item);
+        if (path != null) {
+            this.invalidatePath(path);
+            return;
+        }
+        List<String> parents = parentId == null ? new ArrayList<String>() : this.pathsOf(parentId);
+        if (parents.isEmpty()) {
+            // the new path is unknown, none of the missing paths can be trusted
+            synchronized (entries) {
+                for (Iterator<Resolution> it = entries.values().iterator(); it.hasNext(); ) {
+                    if (it.next().id == null) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+        for (String parent : parents) {
+            this.invalidatePath(parent + "/" + item.getName());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return number of paths resolved without a request
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of paths confirmed by an unchanged eTag
+     */
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * @return number of paths looked up by the API
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private List<String> pathsOf(String id) {
+        List<String> paths = new ArrayList<>();
+        synchronized (entries) {
+            for (Resolution entry : entries.values()) {
+                if (id.equals(entry.id)) {
+                    paths.add(entry.path);
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static boolean isWithin(String path, String prefix) {
+        return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    private static String key(String drive, String path) {
+        return (drive == null ? "" : drive) + "|" + normalize(path);
+    }
+
+    /**
+     * Cached resolution of one path.
+     */
+    static final class Resolution {
+        final String path;
+        final String id;
+        final String eTag;
+        final String error;
+        volatile long expires;
+
+        Resolution(String path, String id, String eTag, String error, long expires) {
+            this.path = path;
+            this.id = id;
+            this.eTag = eTag;
+            this.error = error;
+            this.expires = expires;
+        }
+
+        boolean isMissing() {
+            return id == null;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expires < 0;
+        }
+    }
+}
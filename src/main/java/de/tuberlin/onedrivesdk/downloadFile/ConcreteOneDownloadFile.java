@@ -1,28 +1,65 @@
 package de.tuberlin.onedrivesdk.downloadFile;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
 import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
 import de.tuberlin.onedrivesdk.file.OneFile;
 import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
+import de.tuberlin.onedrivesdk.networking.OneResponse;
+import de.tuberlin.onedrivesdk.networking.PreparedRequest;
+import de.tuberlin.onedrivesdk.networking.PreparedRequestMethod;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Implementation of OneDownloadFile
- * Blocking download operation
+ * Blocking download operation, the content is streamed to the destination through a fixed size buffer.
+ * With more than one connection the file is preallocated and fetched as HTTP Range segments in parallel,
+ * every segment is written at its offset and retried on its own.
+ * The ranges written so far are recorded in a sidecar file next to the destination, a streamed download records
+ * its prefix every segment size bytes so that even a killed process leaves a record behind. If the download is
+ * interrupted the next attempt only requests the missing ranges as long as the eTag of the item did not change,
+ * the ranges are requested with If-Range so that content of another version is never mixed in.
  */
 public class ConcreteOneDownloadFile implements OneDownloadFile {
 
     private static final Logger logger = LogManager.getLogger(ConcreteOneDownloadFile.class);
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int DEFAULT_SEGMENT_RETRIES = 3;
 
     private final ConcreteOneFile metadata;
     private final ConcreteOneDriveSDK api;
     private final File destinationFile;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int connections = 1;
+    private long segmentSize = DEFAULT_SEGMENT_SIZE;
+    private int segmentRetries = DEFAULT_SEGMENT_RETRIES;
+    private TransferProgress progress;
 
     public ConcreteOneDownloadFile(ConcreteOneFile metadata, ConcreteOneDriveSDK api, File destinationFile) throws FileNotFoundException {
         this.metadata = metadata;
@@ -35,23 +72,330 @@ public class ConcreteOneDownloadFile implements OneDownloadFile {
         return metadata;
     }
 
+    @Override
+    public OneDownloadFile setBufferSize(int bufferSize) {
+        checkArgument(bufferSize > 0, "buffer size must be positive");
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    @Override
+    public OneDownloadFile setConnections(int connections) {
+        checkArgument(connections > 0, "at least one connection is required");
+        this.connections = connections;
+        return this;
+    }
+
+    @Override
+    public OneDownloadFile setSegmentSize(long segmentSize) {
+        checkArgument(segmentSize > 0, "segment size must be positive");
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    @Override
+    public OneDownloadFile setSegmentRetries(int segmentRetries) {
+        checkArgument(segmentRetries >= 0, "retries must not be negative");
+        this.segmentRetries = segmentRetries;
+        return this;
+    }
+
+    @Override
+    public OneDownloadFile setTransferListener(TransferListener listener) {
+        this.progress = listener == null ? null : new TransferProgress(metadata.getName(), metadata.getSize(), listener);
+        return this;
+    }
+
     @Override
     public void startDownload() throws IOException, OneDriveAuthenticationException {
-        RandomAccessFile destination = new RandomAccessFile(this.destinationFile, "rw");
-        try {
-            logger.info("Starting download of "+metadata.getName());
-            destination.write(api.download(metadata.getId()));
-        } finally {
-            logger.info("Finished download of "+this.metadata.getName());
+        logger.info("Starting download of " + metadata.getName());
+        PartialDownload partial = metadata.getETag() == null ? null
+                : PartialDownload.open(destinationFile, metadata.getETag(), metadata.getSize());
+        if (partial != null && partial.hasProgress()) {
+            logger.info("Resuming download of {}, {} bytes are already present", metadata.getName(), partial.getCompletedBytes());
+            startRangedDownload(partial, partial.getMissing());
+        } else if (connections > 1 && metadata.getSize() > segmentSize) {
+            startRangedDownload(partial, Collections.singletonList(new long[]{0, metadata.getSize() - 1}));
+        } else {
+            startStreamingDownload(partial);
+        }
+        if (partial != null) {
+            partial.delete();
+        }
+    }
+
+    private void startStreamingDownload(PartialDownload partial) throws IOException, OneDriveAuthenticationException {
+        long requestStarted = System.nanoTime();
+        OneResponse response = api.openDownload(metadata.getId());
+        try (InputStream content = response.getBodyAsStream()) {
+            if (!response.wasSuccess()) {
+                throw new IOException(String.format("Download of %s failed with status %d",
+                        metadata.getName(), response.getStatusCode()));
+            }
+            try (FileChannel destination = FileChannel.open(this.destinationFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long[] written = {0};
+                try {
+                    transfer(content, destination, partial, written, requestStarted);
+                } catch (IOException e) {
+                    recordAfterFailure(partial, destination, 0, written[0] - 1, e);
+                    throw e;
+                }
+                logger.info("Finished download of " + this.metadata.getName() + " (" + written[0] + " bytes)");
+            }
+        }
+    }
+
+    private void startRangedDownload(PartialDownload partial, List<long[]> missing) throws IOException, OneDriveAuthenticationException {
+        if (missing.isEmpty()) {
+            return;
+        }
+        String location = api.resolveDownloadLocation(metadata.getId());
+        List<Segment> segments = split(missing);
+        logger.info("Downloading {} in {} segments over {} connections", metadata.getName(), segments.size(), connections);
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(connections, segments.size()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-download-%d").build());
+        AtomicBoolean aborted = new AtomicBoolean();
+        try (RandomAccessFile file = new RandomAccessFile(destinationFile, "rw")) {
+            file.setLength(metadata.getSize());
+            FileChannel destination = file.getChannel();
+
+            List<Future<Long>> pending = new ArrayList<>(segments.size());
             try {
-                destination.close();
-            } catch (IOException e) {
+                for (Segment segment : segments) {
+                    pending.add(workers.submit(new SegmentDownload(location, segment, destination, partial, aborted)));
+                }
+                long written = 0;
+                for (Future<Long> segment : pending) {
+                    written += await(segment);
+                }
+                logger.info("Finished download of " + this.metadata.getName() + " (" + written + " bytes)");
+            } finally {
+                // interrupting a worker inside FileChannel.write would close the channel for all segments,
+                // the workers stop at their next read instead and the channel is closed once they are done
+                aborted.set(true);
+                for (Future<Long> segment : pending) {
+                    segment.cancel(false);
+                }
+                workers.shutdown();
+                awaitWorkers(workers);
+            }
+        }
+    }
+
+    private void awaitWorkers(ExecutorService workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Still waiting for the segments of {} to stop", metadata.getName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    private List<Segment> split(List<long[]> ranges) {
+        List<Segment> segments = new ArrayList<>();
+        for (long[] range : ranges) {
+            for (long start = range[0]; start <= range[1]; start += segmentSize) {
+                segments.add(new Segment(start, Math.min(start + segmentSize - 1, range[1])));
+            }
+        }
+        return segments;
+    }
+
+    private long await(Future<Long> segment) throws IOException, OneDriveAuthenticationException {
+        try {
+            return segment.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + metadata.getName());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OneDriveAuthenticationException) {
+                throw (OneDriveAuthenticationException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Download of " + metadata.getName() + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Copies the content, written[0] holds the number of bytes on disk even if the transfer fails.
+     * Exactly every segment size bytes the written prefix is flushed to disk and recorded in the sidecar,
+     * then the progress is reported. The first chunk includes the time of the request.
+     */
+    private void transfer(InputStream content, FileChannel destination, PartialDownload partial, long[] written,
+                          long requestStarted) throws IOException {
+        byte[] chunk = new byte[bufferSize];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long chunkStart = 0;
+        long chunkStarted = requestStarted;
+
+        int read;
+        // a read never crosses a segment boundary, every record and checkpoint ends on a multiple of the segment size
+        while ((read = content.read(chunk, 0, (int) Math.min(chunk.length, segmentSize - (written[0] - chunkStart)))) != -1) {
+            buffer.clear().limit(read);
+            while (buffer.hasRemaining()) {
+                written[0] += destination.write(buffer);
+            }
+            if (written[0] - chunkStart >= segmentSize) {
+                record(partial, destination, 0, written[0] - 1);
+                long now = System.nanoTime();
+                if (progress != null) {
+                    progress.record(chunkStart, written[0] - chunkStart, now - chunkStarted);
+                }
+                chunkStart = written[0];
+                chunkStarted = now;
             }
         }
+        if (progress != null && written[0] > chunkStart) {
+            progress.record(chunkStart, written[0] - chunkStart, System.nanoTime() - chunkStarted);
+        }
+    }
+
+    /**
+     * Records a written range in the sidecar. The channel is forced first, the record must never claim bytes
+     * which are not on disk yet: after a crash they would be skipped and leave a hole in the file.
+     */
+    private static void record(PartialDownload partial, FileChannel destination, long first, long last) throws IOException {
+        if (partial == null || last < first) {
+            return;
+        }
+        destination.force(false);
+        partial.complete(first, last);
+    }
+
+    /**
+     * Records the range written before a failure, a failure to record it does not hide the original one.
+     */
+    private static void recordAfterFailure(PartialDownload partial, FileChannel destination, long first, long last,
+                                           IOException failure) {
+        try {
+            record(partial, destination, first, last);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
     }
 
     @Override
     public File getDownloadedFile() {
         return destinationFile;
     }
+
+    /**
+     * Inclusive byte range of the file.
+     */
+    private static class Segment {
+        private final long first;
+        private final long last;
+
+        Segment(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        long length() {
+            return last - first + 1;
+        }
+    }
+
+    /**
+     * The server answered a Range request with the whole content because the If-Range eTag no longer matches.
+     */
+    private static class ContentChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ContentChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Fetches one segment and writes it at its offset.
+     * After a failed attempt only the part of the segment that has not been written yet is requested again.
+     */
+    private class SegmentDownload implements Callable<Long> {
+        private final String location;
+        private final Segment segment;
+        private final FileChannel destination;
+        private final PartialDownload partial;
+        private final AtomicBoolean aborted;
+        private long position;
+
+        SegmentDownload(String location, Segment segment, FileChannel destination, PartialDownload partial,
+                        AtomicBoolean aborted) {
+            this.location = location;
+            this.segment = segment;
+            this.destination = destination;
+            this.partial = partial;
+            this.aborted = aborted;
+            this.position = segment.first;
+        }
+
+        @Override
+        public Long call() throws IOException, OneDriveAuthenticationException {
+            byte[] chunk = new byte[bufferSize];
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    fetch(chunk);
+                    record(partial, destination, segment.first, segment.last);
+                    return segment.length();
+                } catch (IOException e) {
+                    if (e instanceof ContentChangedException) {
+                        throw e;
+                    }
+                    if (attempt >= segmentRetries || aborted.get() || Thread.currentThread().isInterrupted()) {
+                        recordAfterFailure(partial, destination, segment.first, position - 1, e);
+                        throw e;
+                    }
+                    logger.warn("Segment {}-{} of {} failed at {}, retrying", segment.first, segment.last,
+                            metadata.getName(), position, e);
+                }
+            }
+        }
+
+        private void fetch(byte[] chunk) throws IOException, OneDriveAuthenticationException {
+            long requestStarted = System.nanoTime();
+            long first = position;
+            PreparedRequest request = new PreparedRequest(location, PreparedRequestMethod.GET)
+                    .addHeader("Range", String.format("bytes=%d-%d", position, segment.last));
+            if (metadata.getETag() != null) {
+                request.addHeader("If-Range", metadata.getETag());
+            }
+            OneResponse response = api.makeStreamingRequest(request);
+            try (InputStream content = response.getBodyAsStream()) {
+                if (response.getStatusCode() == 200 && metadata.getETag() != null) {
+                    throw new ContentChangedException(String.format("%s changed since its metadata was fetched, "
+                            + "the download has to be started again with the current item", metadata.getName()));
+                }
+                if (response.getStatusCode() != 206) {
+                    throw new IOException(String.format("Range %d-%d of %s failed with status %d",
+                            position, segment.last, metadata.getName(), response.getStatusCode()));
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                int read;
+                while (position <= segment.last
+                        && (read = content.read(chunk, 0, (int) Math.min(chunk.length, segment.last - position + 1))) != -1) {
+                    if (aborted.get()) {
+                        throw new InterruptedIOException(String.format("Download of %s was aborted", metadata.getName()));
+                    }
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        position += destination.write(buffer, position);
+                    }
+                }
+            } finally {
+                // bytes written before a connection broke are kept, the retry continues after them
+                if (progress != null && position > first) {
+                    progress.record(first, position - first, System.nanoTime() - requestStarted);
+                }
+            }
+            if (position <= segment.last) {
+                throw new IOException(String.format("Range %d-%d of %s ended early", position, segment.last, metadata.getName()));
+            }
+        }
+    }
 }
@@ -2,6 +2,7 @@ package de.tuberlin.onedrivesdk.downloadFile;
 
 import de.tuberlin.onedrivesdk.file.OneFile;
 import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
 
 import java.io.File;
 import java.io.IOException;
@@ -18,6 +19,48 @@ public interface OneDownloadFile {
      */
     OneFile getMetaData();
 
+    /**
+     * Sets the size of the buffer the content is streamed through, the heap used by a download does not grow beyond it.
+     *
+     * @param bufferSize in bytes
+     * @return this
+     */
+    OneDownloadFile setBufferSize(int bufferSize);
+
+    /**
+     * Sets the number of parallel connections. With more than one connection a file larger than one segment
+     * is downloaded as HTTP Range segments which are written at their offset in the preallocated destination.
+     *
+     * @param connections number of concurrent requests, 1 streams the file over a single connection
+     * @return this
+     */
+    OneDownloadFile setConnections(int connections);
+
+    /**
+     * Sets the size of the Range segments of a parallel download.
+     *
+     * @param segmentSize in bytes
+     * @return this
+     */
+    OneDownloadFile setSegmentSize(long segmentSize);
+
+    /**
+     * Sets how often a failed segment is requested again before the download fails.
+     *
+     * @param segmentRetries retries per segment
+     * @return this
+     */
+    OneDownloadFile setSegmentRetries(int segmentRetries);
+
+    /**
+     * Reports the progress to the listener, a segment of a parallel download is one chunk,
+     * a streamed download reports every segment size bytes.
+     *
+     * @param listener listener for the chunks, null for none
+     * @return this
+     */
+    OneDownloadFile setTransferListener(TransferListener listener);
+
     /**
      * Starts Download, blocks until finished.
      *
@@ -0,0 +1,155 @@
+package de.tuberlin.onedrivesdk.downloadFile;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sidecar record of an unfinished download, stored next to the destination as '&lt;name&gt;.partial'.
+ * It holds the eTag and size of the item and the byte ranges which are already written to the destination,
+ * a later download of the same, unchanged item only requests the missing ranges.
+ */
+class PartialDownload {
+
+    static final String SUFFIX = ".partial";
+
+    private static final Logger logger = LogManager.getLogger(PartialDownload.class);
+    private static final Gson gson = new Gson();
+
+    private transient File record;
+    private String eTag;
+    private long size;
+    /**
+     * Sorted, non overlapping inclusive ranges
+     */
+    private List<long[]> completed = new ArrayList<>();
+
+    private PartialDownload() {
+    }
+
+    /**
+     * Loads the record of a previous download of the same item version or starts a new one.
+     * A record of another version of the item is discarded.
+     *
+     * @param destination file the content is written to
+     * @param eTag        current eTag of the item
+     * @param size        current size of the item
+     * @return record
+     */
+    static PartialDownload open(File destination, String eTag, long size) {
+        File record = new File(destination.getPath() + SUFFIX);
+        PartialDownload partial = null;
+        if (record.isFile() && destination.isFile()) {
+            try (Reader reader = Files.newBufferedReader(record.toPath(), StandardCharsets.UTF_8)) {
+                partial = gson.fromJson(reader, PartialDownload.class);
+            } catch (IOException | JsonParseException e) {
+                logger.warn("Ignoring unreadable download record {}", record, e);
+            }
+        }
+        if (partial == null || partial.completed == null || !eTag.equals(partial.eTag) || partial.size != size) {
+            if (partial != null) {
+                logger.info("{} changed since the last attempt, starting over", destination.getName());
+            }
+            partial = new PartialDownload();
+            partial.eTag = eTag;
+            partial.size = size;
+        }
+        partial.record = record;
+        return partial;
+    }
+
+    /**
+     * @return true if a previous attempt already wrote a part of the content
+     */
+    synchronized boolean hasProgress() {
+        return !completed.isEmpty();
+    }
+
+    /**
+     * @return number of bytes which are already written
+     */
+    synchronized long getCompletedBytes() {
+        long bytes = 0;
+        for (long[] range : completed) {
+            bytes += range[1] - range[0] + 1;
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the ranges which still have to be downloaded.
+     *
+     * @return sorted inclusive ranges
+     */
+    synchronized List<long[]> getMissing() {
+        List<long[]> missing = new ArrayList<>();
+        long next = 0;
+        for (long[] range : completed) {
+            if (range[0] > next) {
+                missing.add(new long[]{next, range[0] - 1});
+            }
+            next = range[1] + 1;
+        }
+        if (next < size) {
+            missing.add(new long[]{next, size - 1});
+        }
+        return missing;
+    }
+
+    /**
+     * Marks a range as written and persists the record.
+     *
+     * @param first first byte
+     * @param last  last byte, inclusive
+     * @throws IOException if the record can not be written
+     */
+    synchronized void complete(long first, long last) throws IOException {
+        if (last < first) {
+            return;
+        }
+        List<long[]> merged = new ArrayList<>(completed.size() + 1);
+        long[] added = {first, last};
+        Iterator<long[]> ranges = completed.iterator();
+        while (ranges.hasNext()) {
+            long[] range = ranges.next();
+            if (range[1] + 1 < added[0]) {
+                merged.add(range);
+            } else if (added[1] + 1 < range[0]) {
+                merged.add(added);
+                added = range;
+            } else {
+                added = new long[]{Math.min(range[0], added[0]), Math.max(range[1], added[1])};
+            }
+        }
+        merged.add(added);
+        completed = merged;
+        save();
+    }
+
+    /**
+     * Removes the record, called once the download is complete.
+     */
+    synchronized void delete() throws IOException {
+        Files.deleteIfExists(record.toPath());
+    }
+
+    private void save() throws IOException {
+        File temp = new File(record.getPath() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(this, writer);
+        }
+        Files.move(temp.toPath(), record.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
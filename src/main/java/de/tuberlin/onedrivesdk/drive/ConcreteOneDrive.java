@@ -5,6 +5,8 @@ import com.google.gson.reflect.TypeToken;
 
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.DeltaEnumeration;
+import de.tuberlin.onedrivesdk.common.DeltaTokenStore;
 import de.tuberlin.onedrivesdk.folder.OneFolder;
 import de.tuberlin.onedrivesdk.common.OneDriveError;
 
@@ -110,6 +112,16 @@ public class ConcreteOneDrive implements OneDrive {
 		return api.getRootFolder(this);
 	}
 
+    @Override
+    public DeltaEnumeration delta(String token) {
+        return api.delta(this, token);
+    }
+
+    @Override
+    public DeltaEnumeration delta(DeltaTokenStore store) throws IOException {
+        return api.delta(this, store);
+    }
+
     @Override
     public String getRawJson() {
         return rawJson;
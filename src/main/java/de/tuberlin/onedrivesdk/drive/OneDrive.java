@@ -1,6 +1,8 @@
 package de.tuberlin.onedrivesdk.drive;
 
 import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.common.DeltaEnumeration;
+import de.tuberlin.onedrivesdk.common.DeltaTokenStore;
 import de.tuberlin.onedrivesdk.folder.OneFolder;
 
 import java.io.IOException;
@@ -21,6 +23,24 @@ public interface OneDrive {
      */
     OneFolder getRootFolder() throws IOException, OneDriveException;
 
+    /**
+     * Enumerates the items of the drive which changed since an earlier enumeration.
+     *
+     * @param token token of the earlier enumeration, null to enumerate everything
+     * @return enumeration, its pages are requested while it is iterated
+     */
+    DeltaEnumeration delta(String token);
+
+    /**
+     * Enumerates the items of the drive which changed since the last completed enumeration with the same store.
+     * The new token is saved once the enumeration was consumed completely.
+     *
+     * @param store keeps the token between runs
+     * @return enumeration, its pages are requested while it is iterated
+     * @throws IOException if the token can not be loaded
+     */
+    DeltaEnumeration delta(DeltaTokenStore store) throws IOException;
+
 
     /**
      * Gets drive type. OneDrive drives will show as personal.
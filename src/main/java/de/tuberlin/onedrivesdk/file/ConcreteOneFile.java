@@ -86,6 +86,6 @@ public class ConcreteOneFile extends OneItem implements OneFile {
 
     @Override
     public OneFile move(OneFolder targetFolder) throws InterruptedException, OneDriveException, ParseException, IOException {
-        return api.move(id, targetFolder.getId());
+        return api.move(this, targetFolder.getId());
     }
 }
@@ -4,14 +4,25 @@ package de.tuberlin.onedrivesdk.folder;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.OneItem;
 import de.tuberlin.onedrivesdk.common.ConflictBehavior;
+import de.tuberlin.onedrivesdk.common.DeltaEnumeration;
+import de.tuberlin.onedrivesdk.common.DeltaTokenStore;
 import de.tuberlin.onedrivesdk.common.OneItemType;
 import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.uploadFile.ConcreteOneSimpleUploadFile;
+import de.tuberlin.onedrivesdk.uploadFile.ConcreteOneStreamUploadFile;
+import de.tuberlin.onedrivesdk.uploadFile.ConcreteOneUnchangedUploadFile;
 import de.tuberlin.onedrivesdk.uploadFile.ConcreteOneUploadFile;
+import de.tuberlin.onedrivesdk.uploadFile.ContentHash;
+import de.tuberlin.onedrivesdk.uploadFile.DirectoryUpload;
 import de.tuberlin.onedrivesdk.uploadFile.OneUploadFile;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -68,6 +79,21 @@ public class ConcreteOneFolder extends OneItem implements OneFolder {
         return api.getChildren(this, OneItemType.ALL);
     }
 
+    @Override
+    public Iterable<OneItem> iterateChildren() {
+        return api.iterateChildren(this, OneItemType.ALL);
+    }
+
+    @Override
+    public DeltaEnumeration delta(String token) {
+        return api.delta(this, token);
+    }
+
+    @Override
+    public DeltaEnumeration delta(DeltaTokenStore store) throws IOException {
+        return api.delta(this, store);
+    }
+
     @Override
     public OneFolder createFolder(String name) throws IOException, OneDriveException {
         return api.createFolder(this, name);
@@ -85,9 +111,33 @@ public class ConcreteOneFolder extends OneItem implements OneFolder {
 
     @Override
     public OneUploadFile uploadFile(File file) throws IOException, OneDriveException {
+        if (file != null && file.isFile() && api.isSkipUnchangedUploads()) {
+            OneFile existing = api.getChildFile(this, file.getName());
+            if (existing != null && ContentHash.matches(file, existing)) {
+                return new ConcreteOneUnchangedUploadFile(file, existing);
+            }
+        }
+        if (file != null && file.isFile() && file.length() < api.getSimpleUploadThreshold()) {
+            return new ConcreteOneSimpleUploadFile(this, file, api);
+        }
         return new ConcreteOneUploadFile(this, file, api);
     }
 
+    @Override
+    public OneUploadFile uploadStream(String name, InputStream stream, long length) {
+        return uploadStream(name, Channels.newChannel(stream), length);
+    }
+
+    @Override
+    public OneUploadFile uploadStream(String name, ReadableByteChannel channel, long length) {
+        return new ConcreteOneStreamUploadFile(this, name, channel, length, api);
+    }
+
+    @Override
+    public OneFolder uploadDirectory(Path directory) throws IOException, OneDriveException {
+        return new DirectoryUpload(this, directory).call();
+    }
+
     @Override
     public String toString() {
         return "(D) " + name;
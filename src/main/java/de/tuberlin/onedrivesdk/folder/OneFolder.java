@@ -2,13 +2,19 @@ package de.tuberlin.onedrivesdk.folder;
 
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.ConflictBehavior;
+import de.tuberlin.onedrivesdk.common.DeltaEnumeration;
+import de.tuberlin.onedrivesdk.common.DeltaTokenStore;
 import de.tuberlin.onedrivesdk.common.OneItem;
 import de.tuberlin.onedrivesdk.drive.DriveUser;
 import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.uploadFile.DirectoryUpload;
 import de.tuberlin.onedrivesdk.uploadFile.OneUploadFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 /**
@@ -140,6 +146,34 @@ public interface OneFolder {
      */
     List<OneItem> getChildren() throws IOException, OneDriveException;
 
+    /**
+     * Lazily iterates over the children of this folder (e.g. files and folder).
+     * Children are fetched page by page while iterating, so even very large folders
+     * only keep about two pages in memory.
+     * Failures while fetching a page are thrown as IllegalStateException wrapping the cause.
+     *
+     * @return children
+     */
+    Iterable<OneItem> iterateChildren();
+
+    /**
+     * Enumerates the items below this folder which changed since an earlier enumeration.
+     *
+     * @param token token of the earlier enumeration, null to enumerate everything
+     * @return enumeration, its pages are requested while it is iterated
+     */
+    DeltaEnumeration delta(String token);
+
+    /**
+     * Enumerates the items below this folder which changed since the last completed enumeration with the same store.
+     * The new token is saved once the enumeration was consumed completely.
+     *
+     * @param store keeps the token between runs
+     * @return enumeration, its pages are requested while it is iterated
+     * @throws IOException if the token can not be loaded
+     */
+    DeltaEnumeration delta(DeltaTokenStore store) throws IOException;
+
     /**
      * Create a folder with the specified name in the current folder.
      *
@@ -171,6 +205,8 @@ public interface OneFolder {
     /**
      * Creates a resumable upload Session for a file.
      * The file will be uploaded into this folder.
+     * Files below the simple upload threshold of the SDK are sent with a single request instead.
+     * If the SDK skips unchanged uploads and this folder has a file of the same name, size and hash, nothing is sent.
      * The upload is not started upon creation but need to be started manually.
      *
      * @param file the file to be uploaded
@@ -180,6 +216,38 @@ public interface OneFolder {
      */
     OneUploadFile uploadFile(File file) throws IOException, OneDriveException;
 
+    /**
+     * Creates an upload of a stream into this folder, e.g. of data generated on the fly, without a temporary file.
+     * The upload is not started upon creation but need to be started manually.
+     *
+     * @param name   name of the file in OneDrive
+     * @param stream content, read until its end and closed when the upload ends
+     * @param length number of bytes of the stream or -1 if unknown
+     * @return the OneUploadFile session
+     */
+    OneUploadFile uploadStream(String name, InputStream stream, long length);
+
+    /**
+     * Creates an upload of a channel into this folder, see {@link #uploadStream(String, InputStream, long)}.
+     *
+     * @param name    name of the file in OneDrive
+     * @param channel content, read until its end and closed when the upload ends
+     * @param length  number of bytes of the channel or -1 if unknown
+     * @return the OneUploadFile session
+     */
+    OneUploadFile uploadStream(String name, ReadableByteChannel channel, long length);
+
+    /**
+     * Uploads a local directory tree into this folder, blocking operation.
+     * Folders are created and files uploaded in parallel, see {@link DirectoryUpload} for the settings.
+     *
+     * @param directory the local directory, created as folder of the same name
+     * @return the folder created for the directory
+     * @throws IOException
+     * @throws OneDriveException
+     */
+    OneFolder uploadDirectory(Path directory) throws IOException, OneDriveException;
+
     String toString();
 
 
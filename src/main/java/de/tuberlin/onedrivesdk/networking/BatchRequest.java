@@ -0,0 +1,173 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.*;
+import com.squareup.okhttp.RequestBody;
+import de.tuberlin.onedrivesdk.OneDriveException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bundles several PreparedRequests into JSON batches, each batch is sent to the '$batch' endpoint in a single round trip.
+ * The service accepts at most {@link #MAX_BATCH_SIZE} requests per batch, larger batches are split automatically.
+ * The requests of a batch are independent of each other and may be executed in any order.
+ * Only requests with a byte[] body can be batched, a streamed body (see {@link PreparedRequest#setBody(RequestBody)})
+ * has to be sent on its own.
+ */
+public class BatchRequest {
+
+    /**
+     * The maximum number of requests the service accepts in one batch.
+     */
+    public static final int MAX_BATCH_SIZE = 20;
+
+    private final List<PreparedRequest> requests = new ArrayList<>();
+    private int batchSize = MAX_BATCH_SIZE;
+
+    /**
+     * @param request request with a byte[] body or without body
+     * @return this
+     * @throws IllegalArgumentException if the request has a streamed body
+     */
+    public BatchRequest add(PreparedRequest request) {
+        checkStreamless(checkNotNull(request));
+        requests.add(request);
+        return this;
+    }
+
+    public BatchRequest addAll(List<PreparedRequest> requests) {
+        for (PreparedRequest request : requests) {
+            add(request);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how many requests are sent in one round trip.
+     *
+     * @param batchSize between 1 and {@link #MAX_BATCH_SIZE}
+     * @return this
+     */
+    public BatchRequest setBatchSize(int batchSize) {
+        checkArgument(batchSize > 0 && batchSize <= MAX_BATCH_SIZE, "batch size must be between 1 and %s", MAX_BATCH_SIZE);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public List<PreparedRequest> getRequests() {
+        return requests;
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * Splits the requests into the batches that are sent to the service.
+     *
+     * @return consecutive batches of at most batchSize requests
+     */
+    public List<List<PreparedRequest>> getBatches() {
+        return Lists.partition(requests, batchSize);
+    }
+
+    /**
+     * Serializes one batch into the JSON body of a '$batch' request.
+     * The id of every request is its index within the batch.
+     *
+     * @param batch   requests of one batch
+     * @param baseUrl the api url, complete request URLs must start with it
+     * @return json body
+     */
+    public static String toJson(List<PreparedRequest> batch, String baseUrl) {
+        JsonArray requests = new JsonArray();
+        for (int i = 0; i < batch.size(); i++) {
+            PreparedRequest request = batch.get(i);
+            checkStreamless(request);
+
+            JsonObject entry = new JsonObject();
+            entry.addProperty("id", Integer.toString(i));
+            entry.addProperty("method", request.getMethod());
+            entry.addProperty("url", relativeUrl(request.getPath(), baseUrl));
+
+            JsonObject headers = new JsonObject();
+            String contentType = null;
+            for (Map.Entry<String, String> header : request.getHeader().entrySet()) {
+                headers.addProperty(header.getKey(), header.getValue());
+                if ("Content-Type".equalsIgnoreCase(header.getKey())) {
+                    contentType = header.getValue();
+                }
+            }
+            if (request.getBody() != null) {
+                if (contentType != null && contentType.contains("json")) {
+                    entry.add("body", new JsonParser().parse(new String(request.getBody(), StandardCharsets.UTF_8)));
+                } else {
+                    entry.addProperty("body", BaseEncoding.base64().encode(request.getBody()));
+                }
+            }
+            if (headers.entrySet().size() > 0) {
+                entry.add("headers", headers);
+            }
+
+            requests.add(entry);
+        }
+
+        JsonObject root = new JsonObject();
+        root.add("requests", requests);
+        return root.toString();
+    }
+
+    /**
+     * Splits the multiplexed reply of a '$batch' request into one response per request.
+     *
+     * @param json  body of the '$batch' response
+     * @param count number of requests in the batch
+     * @return responses in the order of the requests
+     * @throws OneDriveException if the reply can not be processed or misses a response
+     */
+    public static List<OneResponse> parseResponses(String json, int count) throws OneDriveException {
+        OneResponse[] responses = new OneResponse[count];
+        try {
+            JsonArray entries = new JsonParser().parse(json).getAsJsonObject().getAsJsonArray("responses");
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                int id = Integer.parseInt(entry.get("id").getAsString());
+                responses[id] = BatchedResponse.fromJson(entry);
+            }
+        } catch (JsonParseException | IllegalStateException | NullPointerException
+                | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new OneDriveException("Batch response could not be processed", e);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (responses[i] == null) {
+                throw new OneDriveException(String.format("Batch response is missing the response for request %d", i));
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    private static void checkStreamless(PreparedRequest request) {
+        checkArgument(request.getRequestBody() == null, "requests with a streamed body can not be batched: %s", request.getPath());
+    }
+
+    private static String relativeUrl(String path, String baseUrl) {
+        if (path.startsWith("http://") || path.startsWith("https://")) {
+            checkArgument(path.startsWith(baseUrl), "only requests to %s can be batched: %s", baseUrl, path);
+            path = path.substring(baseUrl.length());
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
+}
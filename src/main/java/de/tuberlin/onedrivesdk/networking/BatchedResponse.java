@@ -0,0 +1,114 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response of a single request that was sent as part of a BatchRequest.
+ */
+public class BatchedResponse implements OneResponse {
+
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    public BatchedResponse(int statusCode, Map<String, String> headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.headers.putAll(headers);
+        this.body = body;
+    }
+
+    /**
+     * Reads one entry of a '$batch' reply. How the body is decoded follows from its declared form:
+     * a JSON object or array is the JSON content itself, a string is text for JSON and text content types
+     * and base64 encoded content otherwise.
+     *
+     * @throws IllegalArgumentException if a base64 body is malformed
+     */
+    static BatchedResponse fromJson(JsonObject entry) {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (entry.has("headers")) {
+            for (Map.Entry<String, JsonElement> header : entry.getAsJsonObject("headers").entrySet()) {
+                headers.put(header.getKey(), header.getValue().getAsString());
+            }
+        }
+
+        byte[] body = new byte[0];
+        JsonElement bodyJson = entry.get("body");
+        if (bodyJson != null && !bodyJson.isJsonNull()) {
+            String contentType = headers.get("Content-Type");
+            if (!bodyJson.isJsonPrimitive() || (contentType != null && contentType.contains("json"))) {
+                body = bodyJson.toString().getBytes(StandardCharsets.UTF_8);
+            } else if (contentType != null && contentType.startsWith("text/")) {
+                body = bodyJson.getAsString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                // binary content is transported base64 encoded
+                body = BaseEncoding.base64().decode(bodyJson.getAsString());
+            }
+        }
+
+        return new BatchedResponse(entry.get("status").getAsInt(), headers, body);
+    }
+
+    @Override
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] getBodyAsBytes() {
+        return body;
+    }
+
+    @Override
+    public InputStream getBodyAsStream() {
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public List<String> getHeaders(String key) {
+        String value = headers.get(key);
+        return value == null ? Collections.<String>emptyList() : Collections.singletonList(value);
+    }
+
+    @Override
+    public String getHeader(String key) {
+        return headers.get(key);
+    }
+
+    @Override
+    public boolean wasSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Requests of a batch are not retried one by one.
+     */
+    @Override
+    public int getRetries() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchedResponse{" +
+                "status=" + statusCode +
+                ", body='" + getBodyAsString() + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Request body which passes every write of the wrapped body through a TransferBudget.
+ */
+class BudgetedRequestBody extends RequestBody {
+
+    private final RequestBody body;
+    private final TransferBudget budget;
+
+    BudgetedRequestBody(RequestBody body, TransferBudget budget) {
+        this.body = body;
+        this.budget = budget;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return body.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return body.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        BufferedSink budgeted = Okio.buffer(new ForwardingSink(sink) {
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                while (byteCount > 0) {
+                    int slice = (int) Math.min(byteCount, TransferBudget.SLICE);
+                    budget.consume(slice);
+                    super.write(source, slice);
+                    byteCount -= slice;
+                }
+            }
+        });
+        body.writeTo(budgeted);
+        budgeted.emit();
+    }
+}
@@ -2,7 +2,9 @@ package de.tuberlin.onedrivesdk.networking;
 
 import com.squareup.okhttp.Response;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -11,26 +13,67 @@ import java.util.List;
 public class ConcreteOneResponse implements OneResponse {
 	private Response response;
 	private byte[] body;
+	private int retries;
 
 	public ConcreteOneResponse(Response response) throws IOException {
+		this(response, true);
+	}
+
+	/**
+	 * Wraps a response.
+	 *
+	 * @param response the OkHTTP response
+	 * @param buffered whether the body is read into memory right away, otherwise the body
+	 *                 is streamed by {@link #getBodyAsStream()} and must be closed by the caller
+	 */
+	public ConcreteOneResponse(Response response, boolean buffered) {
+		this(response, buffered, 0);
+	}
+
+	/**
+	 * Wraps a response which was received after retries.
+	 *
+	 * @param response the OkHTTP response
+	 * @param buffered whether the body is read into memory right away
+	 * @param retries  number of times the request was sent again
+	 */
+	public ConcreteOneResponse(Response response, boolean buffered, int retries) {
 		this.response = response;
-        try {
-            this.body = response.body().bytes();
-        } catch (Exception e) {
-            this.body = new byte[0];
-        }
-    }
+		this.retries = retries;
+		if (buffered) {
+			readBody();
+		}
+	}
+
+	private byte[] readBody() {
+		if (this.body == null) {
+			try {
+				this.body = response.body().bytes();
+			} catch (Exception e) {
+				this.body = new byte[0];
+			}
+		}
+		return this.body;
+	}
 
 	@Override
 	public String getBodyAsString() {
-		return new String(this.body);
+		return new String(readBody());
 	}
 
     @Override
     public byte[] getBodyAsBytes() {
-        return body;
+        return readBody();
     }
 
+	@Override
+	public InputStream getBodyAsStream() throws IOException {
+		if (this.body != null) {
+			return new ByteArrayInputStream(this.body);
+		}
+		return response.body().byteStream();
+	}
+
 	@Override
 	public int getStatusCode() {
 		return this.response.code();
@@ -51,6 +94,11 @@ public class ConcreteOneResponse implements OneResponse {
 		return this.response.header(key);
 	}
 
+	@Override
+	public int getRetries() {
+		return retries;
+	}
+
 	@Override
 	public String toString() {
 		return "Response{" +
@@ -0,0 +1,285 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adaptive limit of the requests in flight, kept separately per drive.
+ * The limit grows by about one request per round trip while it is used and the latency stays
+ * below twice the lowest latency seen (additive increase). A throttled response (429 or 503) halves it,
+ * a higher latency shrinks it by a tenth (multiplicative decrease). Responses to requests sent before the
+ * last decrease do not decrease it again, a burst of throttled responses only counts once.
+ * Requests above the limit wait until a request in flight is finished.
+ */
+public class ConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 8;
+    public static final int DEFAULT_MAX_LIMIT = 64;
+
+    private static final double THROTTLED_DECREASE = 0.5;
+    private static final double LATENCY_DECREASE = 0.9;
+    private static final double LATENCY_TOLERANCE = 2;
+
+    /**
+     * Share of a new latency sample in the lowest latency, lets it follow a slower connection over time
+     */
+    private static final double MIN_LATENCY_DRIFT = 0.01;
+
+    private final int initialLimit;
+    private final int maxLimit;
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * @param initialLimit requests in flight per drive before the first response
+     * @param maxLimit     upper bound of the limit
+     */
+    public ConcurrencyLimiter(int initialLimit, int maxLimit) {
+        checkArgument(initialLimit > 0, "initial limit must be positive");
+        checkArgument(maxLimit >= initialLimit, "max limit must not be below the initial limit");
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Gets the key a request is limited by: the drive of an API path, the host of a complete URL.
+     *
+     * @param path path of the request relative to the API or complete URL
+     * @return key
+     */
+    public static String keyOf(String path) {
+        int scheme = path.indexOf("://");
+        if (scheme != -1) {
+            int end = path.indexOf('/', scheme + 3);
+            return end == -1 ? path.substring(scheme + 3) : path.substring(scheme + 3, end);
+        }
+        if (path.startsWith("drives/")) {
+            int end = path.indexOf('/', "drives/".length());
+            return end == -1 ? path : path.substring(0, end);
+        }
+        return "drive";
+    }
+
+    /**
+     * Waits until a request may be sent.
+     *
+     * @param key key of the request, see {@link #keyOf(String)}
+     * @return permit which has to be finished once the response arrived
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    public Permit acquire(String key) throws InterruptedIOException {
+        ListenableFuture<Permit> permit = acquireAsync(key);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                // the permit was handed out while the thread was interrupted
+                Futures.getUnchecked(permit).onDropped();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request permit");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets a permit without blocking. A waiting permit can be given up by cancelling the future.
+     *
+     * @param key key of the request, see {@link #keyOf(String)}
+     * @return future of the permit, done once the request may be sent
+     */
+    public ListenableFuture<Permit> acquireAsync(String key) {
+        return limitOf(key).acquire();
+    }
+
+    /**
+     * @param key key of the requests
+     * @return current limit of requests in flight
+     */
+    public int getLimit(String key) {
+        Limit limit = limits.get(key);
+        return limit == null ? initialLimit : limit.getLimit();
+    }
+
+    /**
+     * @param key key of the requests
+     * @return number of requests in flight
+     */
+    public int getInFlight(String key) {
+        Limit limit = limits.get(key);
+        return limit == null ? 0 : limit.getInFlight();
+    }
+
+    private Limit limitOf(String key) {
+        Limit limit = limits.get(key);
+        if (limit == null) {
+            Limit created = new Limit(initialLimit);
+            limit = limits.putIfAbsent(key, created);
+            if (limit == null) {
+                limit = created;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Permission to send one request. Exactly one of the finishing methods has to be called, further calls are ignored.
+     */
+    public static final class Permit {
+        private final Limit limit;
+        private final long epoch;
+        private boolean finished;
+
+        private Permit(Limit limit, long epoch) {
+            this.limit = limit;
+            this.epoch = epoch;
+        }
+
+        /**
+         * The request was answered.
+         *
+         * @param latencyNanos time until the response arrived, -1 if it is no usable sample, e.g. for an upload
+         */
+        public void onSuccess(long latencyNanos) {
+            if (finish()) {
+                limit.onSuccess(this, latencyNanos);
+            }
+        }
+
+        /**
+         * The request was answered with 429 or 503.
+         */
+        public void onThrottled() {
+            if (finish()) {
+                limit.onThrottled(this);
+            }
+        }
+
+        /**
+         * The request failed without response, the limit is not changed.
+         */
+        public void onDropped() {
+            if (finish()) {
+                limit.release();
+            }
+        }
+
+        private synchronized boolean finish() {
+            boolean first = !finished;
+            finished = true;
+            return first;
+        }
+    }
+
+    /**
+     * Limit of one key.
+     */
+    private final class Limit {
+        private final Queue<SettableFuture<Permit>> waiting = new ArrayDeque<>();
+        private double limit;
+        private int inFlight;
+        private long minLatency = Long.MAX_VALUE;
+        private long epoch;
+
+        Limit(int initial) {
+            this.limit = initial;
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        ListenableFuture<Permit> acquire() {
+            SettableFuture<Permit> permit = SettableFuture.create();
+            synchronized (this) {
+                if (waiting.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    permit.set(new Permit(this, epoch));
+                } else {
+                    waiting.add(permit);
+                }
+            }
+            return permit;
+        }
+
+        void onSuccess(Permit permit, long latencyNanos) {
+            synchronized (this) {
+                boolean used = inFlight >= limit / 2;
+                inFlight--;
+                if (latencyNanos >= 0) {
+                    minLatency = minLatency == Long.MAX_VALUE || latencyNanos < minLatency
+                            ? latencyNanos
+                            : minLatency + (long) ((latencyNanos - minLatency) * MIN_LATENCY_DRIFT);
+                }
+                if (latencyNanos > LATENCY_TOLERANCE * minLatency) {
+                    decrease(permit, LATENCY_DECREASE);
+                } else if (used) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            admit();
+        }
+
+        void onThrottled(Permit permit) {
+            synchronized (this) {
+                inFlight--;
+                decrease(permit, THROTTLED_DECREASE);
+            }
+            admit();
+        }
+
+        void release() {
+            synchronized (this) {
+                inFlight--;
+            }
+            admit();
+        }
+
+        private void decrease(Permit permit, double factor) {
+            if (permit.epoch == epoch) {
+                limit = Math.max(1, limit * factor);
+                epoch++;
+            }
+        }
+
+        /**
+         * Hands out permits to waiting requests, the futures are completed outside of the lock.
+         */
+        private void admit() {
+            while (true) {
+                SettableFuture<Permit> next;
+                Permit permit;
+                synchronized (this) {
+                    if (waiting.isEmpty() || inFlight >= (int) limit) {
+                        return;
+                    }
+                    next = waiting.poll();
+                    inFlight++;
+                    permit = new Permit(this, epoch);
+                }
+                if (!next.set(permit)) {
+                    // the waiting request was given up
+                    permit.onDropped();
+                }
+            }
+        }
+    }
+}
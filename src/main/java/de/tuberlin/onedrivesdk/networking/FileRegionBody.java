@@ -0,0 +1,70 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+import okio.BufferedSink;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Request body which streams a region of a file straight into the connection.
+ * The region is read with positional reads through a pooled transfer buffer, so a chunk upload
+ * neither allocates a buffer of the chunk size nor moves the position of the channel.
+ * The body can be written several times, e.g. when OkHttp retries the request.
+ */
+public class FileRegionBody extends RequestBody {
+
+    static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<>();
+
+    private final FileChannel channel;
+    private final long position;
+    private final long length;
+
+    public FileRegionBody(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.position = position;
+        this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return null;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        byte[] chunk = borrow();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            long offset = position;
+            long end = position + length;
+            while (offset < end) {
+                buffer.clear().limit((int) Math.min(chunk.length, end - offset));
+                int read = channel.read(buffer, offset);
+                if (read == -1) {
+                    throw new EOFException(String.format("File ended at %d, expected %d bytes", offset, end));
+                }
+                sink.write(chunk, 0, read);
+                offset += read;
+            }
+        } finally {
+            pool.offer(chunk);
+        }
+    }
+
+    private static byte[] borrow() {
+        byte[] chunk = pool.poll();
+        return chunk != null ? chunk : new byte[TRANSFER_BUFFER_SIZE];
+    }
+}
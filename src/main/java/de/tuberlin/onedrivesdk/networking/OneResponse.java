@@ -1,5 +1,7 @@
 package de.tuberlin.onedrivesdk.networking;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -21,6 +23,15 @@ public interface OneResponse {
      */
     byte[] getBodyAsBytes();
 
+    /**
+     * Gets the response body as stream.
+     * For streamed responses the body is not held in memory, the stream has to be closed by the caller.
+     *
+     * @return the body as stream
+     * @throws IOException if the body can not be read
+     */
+    InputStream getBodyAsStream() throws IOException;
+
 	/**
 	 * Gets the status code of the response.
      *
@@ -50,4 +61,11 @@ public interface OneResponse {
      * @return whether the htp request was a successful
      */
     boolean wasSuccess();
+
+    /**
+     * Gets the number of times the request was sent again before this response, see {@link RetryPolicy}.
+     *
+     * @return number of retries
+     */
+    int getRetries();
 }
\ No newline at end of file
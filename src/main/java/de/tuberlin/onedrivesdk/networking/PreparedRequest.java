@@ -1,5 +1,8 @@
 package de.tuberlin.onedrivesdk.networking;
 
+import com.squareup.okhttp.RequestBody;
+
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,6 +15,8 @@ public class PreparedRequest {
     private String path;
     private Map<String, String> header = new HashMap<>();
     private byte[] body;
+    private RequestBody requestBody;
+    private Object tag;
 
     public PreparedRequest(String path, PreparedRequestMethod method) {
         this.path = path;
@@ -46,7 +51,51 @@ public class PreparedRequest {
 
     public PreparedRequest setBody(byte[] body) {
         this.body = body;
+        this.requestBody = null;
         return this;
     }
 
+    /**
+     * Uses a region of a file as body, the content is streamed from the channel when the request is sent.
+     *
+     * @param channel  file to read from, its position is not changed
+     * @param position offset of the first byte
+     * @param length   number of bytes
+     * @return this
+     */
+    public PreparedRequest setBody(FileChannel channel, long position, long length) {
+        return setBody(new FileRegionBody(channel, position, length));
+    }
+
+    /**
+     * Uses a body which is written to the connection when the request is sent, e.g. a part of a buffer.
+     *
+     * @param requestBody body
+     * @return this
+     */
+    public PreparedRequest setBody(RequestBody requestBody) {
+        this.requestBody = requestBody;
+        this.body = null;
+        return this;
+    }
+
+    public RequestBody getRequestBody() {
+        return requestBody;
+    }
+
+    /**
+     * Tags the request, all requests of a tag can be aborted with ConcreteOneDriveSDK.cancelRequests.
+     *
+     * @param tag tag of the request
+     * @return this
+     */
+    public PreparedRequest setTag(Object tag) {
+        this.tag = tag;
+        return this;
+    }
+
+    public Object getTag() {
+        return tag;
+    }
+
 }
@@ -0,0 +1,189 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides which failed requests are sent again and how long to wait before.
+ * Throttled (429) and unavailable (503) responses are retried for every method, the server did not process them.
+ * Other server errors (500, 502, 504), timeouts (408) and broken connections are only retried for idempotent methods.
+ * The wait is the Retry-After of the response if there is one, otherwise it doubles with every retry
+ * starting at the base delay, up to the maximum delay, and is jittered by up to half of its length.
+ * Every call has its own budget of retries, after that the last response or exception is passed to the caller.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 30 * 1000;
+
+    /**
+     * A response asking for a longer wait is passed to the caller instead
+     */
+    public static final long DEFAULT_MAX_RETRY_AFTER_MILLIS = 5 * 60 * 1000;
+
+    private static final Set<String> IDEMPOTENT = new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS"));
+
+    private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+    private volatile long baseDelayMillis = DEFAULT_BASE_DELAY_MILLIS;
+    private volatile long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+    private volatile long maxRetryAfterMillis = DEFAULT_MAX_RETRY_AFTER_MILLIS;
+
+    /**
+     * @return policy which never retries
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().setMaxRetries(0);
+    }
+
+    /**
+     * @param maxRetries number of retries per call, 0 disables retrying
+     * @return this
+     */
+    public RetryPolicy setMaxRetries(int maxRetries) {
+        checkArgument(maxRetries >= 0, "retries must not be negative");
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param delay wait before the first retry, without jitter
+     * @param unit  unit of the delay
+     * @return this
+     */
+    public RetryPolicy setBaseDelay(long delay, TimeUnit unit) {
+        checkArgument(delay > 0, "delay must be positive");
+        this.baseDelayMillis = unit.toMillis(delay);
+        return this;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    /**
+     * @param delay longest wait of the exponential backoff
+     * @param unit  unit of the delay
+     * @return this
+     */
+    public RetryPolicy setMaxDelay(long delay, TimeUnit unit) {
+        checkArgument(delay > 0, "delay must be positive");
+        this.maxDelayMillis = unit.toMillis(delay);
+        return this;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @param delay longest Retry-After which is waited for
+     * @param unit  unit of the delay
+     * @return this
+     */
+    public RetryPolicy setMaxRetryAfter(long delay, TimeUnit unit) {
+        checkArgument(delay >= 0, "delay must not be negative");
+        this.maxRetryAfterMillis = unit.toMillis(delay);
+        return this;
+    }
+
+    public long getMaxRetryAfterMillis() {
+        return maxRetryAfterMillis;
+    }
+
+    /**
+     * Decides whether a response is worth another attempt.
+     *
+     * @param method HTTP method of the request
+     * @param status status code of the response
+     * @return true if the request may be sent again
+     */
+    public boolean isRetryable(String method, int status) {
+        switch (status) {
+            case 429:
+            case 503:
+                return true;
+            case 408:
+            case 500:
+            case 502:
+            case 504:
+                return IDEMPOTENT.contains(method);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Decides whether a request which failed without response is worth another attempt.
+     * It may have reached the server, so only idempotent requests are sent again.
+     *
+     * @param method HTTP method of the request
+     * @param e      failure of the request
+     * @return true if the request may be sent again
+     */
+    public boolean isRetryable(String method, IOException e) {
+        if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        return IDEMPOTENT.contains(method);
+    }
+
+    /**
+     * Computes the wait before a retry.
+     *
+     * @param retry      number of retries already made for the call
+     * @param retryAfter Retry-After header of the response, may be null
+     * @return wait in milliseconds, -1 if the server asks for a longer wait than the policy accepts
+     */
+    public long delayMillis(int retry, String retryAfter) {
+        long requested = parseRetryAfter(retryAfter, System.currentTimeMillis());
+        if (requested > maxRetryAfterMillis) {
+            return -1;
+        }
+        if (requested >= 0) {
+            return requested;
+        }
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry, 30));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    /**
+     * Parses a Retry-After header, given in seconds or as HTTP date.
+     *
+     * @param value header value, may be null
+     * @param now   current time in milliseconds
+     * @return wait in milliseconds, -1 if there is no valid header
+     */
+    static long parseRetryAfter(String value, long now) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            try {
+                return Math.max(0, format.parse(value).getTime() - now);
+            } catch (ParseException invalid) {
+                return -1;
+            }
+        }
+    }
+}
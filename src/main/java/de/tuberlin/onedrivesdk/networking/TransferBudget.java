@@ -0,0 +1,79 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.squareup.okhttp.RequestBody;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Byte budget shared by several transfers. Every request body wrapped by the budget is counted
+ * and, if a rate is set, throttled so that all wrapped bodies together stay below the rate.
+ */
+public class TransferBudget {
+
+    /**
+     * Largest piece written at once, keeps the throttling smooth for large writes
+     */
+    static final int SLICE = 64 * 1024;
+
+    private final AtomicLong transferred = new AtomicLong();
+    private volatile RateLimiter limiter;
+
+    /**
+     * Limits the rate of all transfers using this budget.
+     *
+     * @param bytesPerSecond rate, 0 removes the limit
+     * @return this
+     */
+    public TransferBudget setMaxBytesPerSecond(double bytesPerSecond) {
+        checkArgument(bytesPerSecond >= 0, "rate must not be negative");
+        if (bytesPerSecond == 0) {
+            limiter = null;
+        } else if (limiter == null) {
+            limiter = RateLimiter.create(bytesPerSecond);
+        } else {
+            limiter.setRate(bytesPerSecond);
+        }
+        return this;
+    }
+
+    /**
+     * @return limit in bytes per second, 0 if unlimited
+     */
+    public double getMaxBytesPerSecond() {
+        RateLimiter current = limiter;
+        return current == null ? 0 : current.getRate();
+    }
+
+    /**
+     * @return number of bytes written by all wrapped bodies
+     */
+    public long getTransferred() {
+        return transferred.get();
+    }
+
+    /**
+     * Wraps a request body so that it is written within this budget.
+     *
+     * @param body body to send
+     * @return budgeted body
+     */
+    public RequestBody wrap(RequestBody body) {
+        return new BudgetedRequestBody(body, this);
+    }
+
+    /**
+     * Blocks until the bytes may be sent and counts them.
+     *
+     * @param bytes at most SLICE bytes
+     */
+    void consume(int bytes) {
+        RateLimiter current = limiter;
+        if (current != null && bytes > 0) {
+            current.acquire(bytes);
+        }
+        transferred.addAndGet(bytes);
+    }
+}
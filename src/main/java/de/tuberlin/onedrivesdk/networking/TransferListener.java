@@ -0,0 +1,15 @@
+package de.tuberlin.onedrivesdk.networking;
+
+/**
+ * Receives the progress of an upload or download after every chunk.
+ */
+public interface TransferListener {
+
+    /**
+     * Called after a chunk was transferred. The progress is the same object for all chunks of a transfer,
+     * it must not be kept after the call. Calls for one transfer never overlap, but may come from different threads.
+     *
+     * @param progress state of the transfer
+     */
+    void onChunk(TransferProgress progress);
+}
@@ -0,0 +1,103 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of one upload or download, updated in place for every chunk so that reporting allocates nothing.
+ * Besides the totals it holds the last chunk, its throughput and round trip time and a smoothed throughput.
+ */
+public final class TransferProgress {
+
+    private static final double SMOOTHING = 0.3;
+
+    private final String name;
+    private final long total;
+    private final TransferListener listener;
+    private long position;
+    private long bytes;
+    private long transferred;
+    private long roundTripNanos;
+    private double throughput;
+    private double smoothedThroughput;
+
+    /**
+     * @param name     name of the transferred file
+     * @param total    size of the file, -1 if unknown
+     * @param listener listener notified for every chunk
+     */
+    public TransferProgress(String name, long total, TransferListener listener) {
+        this.name = name;
+        this.total = total;
+        this.listener = listener;
+    }
+
+    /**
+     * Records a transferred chunk and notifies the listener.
+     *
+     * @param position       first byte of the chunk
+     * @param bytes          size of the chunk
+     * @param roundTripNanos time from sending the request until the chunk was complete
+     */
+    public synchronized void record(long position, long bytes, long roundTripNanos) {
+        this.position = position;
+        this.bytes = bytes;
+        this.roundTripNanos = roundTripNanos;
+        this.transferred += bytes;
+        this.throughput = bytes / (Math.max(roundTripNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1));
+        this.smoothedThroughput = smoothedThroughput == 0 ? throughput : SMOOTHING * throughput + (1 - SMOOTHING) * smoothedThroughput;
+        listener.onChunk(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return size of the file, -1 if unknown
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return first byte of the last chunk
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return size of the last chunk
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return bytes transferred by all chunks so far, retransmitted bytes count again
+     */
+    public synchronized long getTransferred() {
+        return transferred;
+    }
+
+    /**
+     * @return time from sending the request of the last chunk until it was complete
+     */
+    public synchronized long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    /**
+     * @return throughput of the last chunk in bytes per second
+     */
+    public synchronized double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return exponentially smoothed throughput of all chunks in bytes per second
+     */
+    public synchronized double getSmoothedThroughput() {
+        return smoothedThroughput;
+    }
+}
@@ -0,0 +1,129 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Double buffer for pipelined uploads: while the chunk in one buffer is sent,
+ * the following chunk is read from disk into the other buffer.
+ * A prefetched chunk is only used if the server asks for exactly that range next,
+ * otherwise it is dropped and the requested range is read synchronously.
+ */
+class ChunkPrefetcher implements AutoCloseable {
+
+	private final FileChannel channel;
+	private final ByteBuffer[] buffers = new ByteBuffer[2];
+	private final ExecutorService reader = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-upload-prefetch-%d").build());
+	private int spare = 0;
+	private Future<ByteBuffer> pending;
+	private long pendingPosition = -1;
+	private long pendingLength;
+
+	ChunkPrefetcher(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Gets the length of the chunk which is prefetched at the given position.
+	 *
+	 * @param position first byte of the next chunk
+	 * @param length   length to use if nothing is prefetched at that position
+	 * @return length of the next chunk
+	 */
+	long plannedLength(long position, long length) {
+		return pending != null && pendingPosition == position ? pendingLength : length;
+	}
+
+	/**
+	 * Gets a chunk, the returned buffer stays untouched until the next call of take().
+	 *
+	 * @param position first byte of the chunk
+	 * @param length   size of the chunk, at most the chunk size
+	 * @return buffer holding the chunk between position 0 and its limit
+	 * @throws IOException
+	 */
+	ByteBuffer take(long position, long length) throws IOException {
+		Future<ByteBuffer> prefetched = pending;
+		pending = null;
+		if (prefetched != null && pendingPosition == position && pendingLength == length) {
+			return await(prefetched);
+		}
+		if (prefetched != null) {
+			// the outdated read fills the other buffer, the next prefetch into it is queued behind it
+			prefetched.cancel(false);
+		}
+		return read(nextBuffer(), position, length);
+	}
+
+	/**
+	 * Starts to read the given chunk into the buffer which is not handed out.
+	 *
+	 * @param position first byte of the chunk
+	 * @param length   size of the chunk
+	 */
+	void prefetch(final long position, final long length) {
+		final int buffer = nextBuffer();
+		pendingPosition = position;
+		pendingLength = length;
+		pending = reader.submit(new Callable<ByteBuffer>() {
+			@Override
+			public ByteBuffer call() throws IOException {
+				return read(buffer, position, length);
+			}
+		});
+	}
+
+	@Override
+	public void close() {
+		reader.shutdownNow();
+	}
+
+	private int nextBuffer() {
+		int buffer = spare;
+		spare = 1 - spare;
+		return buffer;
+	}
+
+	/**
+	 * Reads a chunk into one of the two buffers, a buffer is only replaced if the chunk does not fit.
+	 */
+	private ByteBuffer read(int index, long position, long length) throws IOException {
+		if (buffers[index] == null || buffers[index].capacity() < length) {
+			buffers[index] = ByteBuffer.allocate((int) length);
+		}
+		ByteBuffer buffer = buffers[index];
+		buffer.clear().limit((int) length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException(String.format("File ended at %d, expected %d bytes", position + buffer.position(), position + length));
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private ByteBuffer await(Future<ByteBuffer> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading the next chunk");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Could not read the next chunk", e.getCause());
+		}
+	}
+}
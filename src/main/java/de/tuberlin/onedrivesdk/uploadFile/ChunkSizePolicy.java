@@ -0,0 +1,79 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides the size of the next upload chunk. Sizes are always a multiple of 320 KiB
+ * (best practice of dev.onedrive) and at most 60 MiB, the largest fragment the API accepts.
+ * An adaptive policy aims at chunks which take about TARGET_SECONDS to send: the size follows the
+ * measured throughput but at most doubles per chunk, a failed chunk halves it and growth is paused
+ * while more than one in five chunks fails.
+ */
+class ChunkSizePolicy {
+
+	static final int UNIT = 320 * 1024;
+	static final int DEFAULT_UNITS = 30;
+	static final int MAX_UNITS = 192;
+
+	private static final double TARGET_SECONDS = 4;
+	private static final double SMOOTHING = 0.3;
+	private static final double MAX_FAILURE_RATE = 0.2;
+
+	private final boolean adaptive;
+	private int units = DEFAULT_UNITS;
+	private double throughput;
+	private double failureRate;
+
+	ChunkSizePolicy(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	/**
+	 * @return size of the next chunk in bytes
+	 */
+	synchronized int getChunkSize() {
+		return units * UNIT;
+	}
+
+	/**
+	 * @return smoothed throughput of the sent chunks in bytes per second, 0 before the first chunk
+	 */
+	synchronized double getThroughput() {
+		return throughput;
+	}
+
+	/**
+	 * Records a chunk the server accepted.
+	 *
+	 * @param bytes size of the chunk
+	 * @param nanos time it took to send the chunk and receive the answer
+	 */
+	synchronized void onSuccess(long bytes, long nanos) {
+		double seconds = Math.max(nanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+		double measured = bytes / seconds;
+		throughput = throughput == 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * throughput;
+		failureRate = (1 - SMOOTHING) * failureRate;
+
+		if (adaptive) {
+			int desired = (int) Math.min(MAX_UNITS, throughput * TARGET_SECONDS / UNIT);
+			if (failureRate > MAX_FAILURE_RATE) {
+				desired = Math.min(desired, units);
+			}
+			units = clamp(desired, units / 2, units * 2);
+		}
+	}
+
+	/**
+	 * Records a chunk the server did not accept.
+	 */
+	synchronized void onFailure() {
+		failureRate = SMOOTHING + (1 - SMOOTHING) * failureRate;
+		if (adaptive) {
+			units = clamp(units / 2, 1, MAX_UNITS);
+		}
+	}
+
+	private static int clamp(int units, int min, int max) {
+		return Math.max(1, Math.min(MAX_UNITS, Math.max(min, Math.min(max, units))));
+	}
+}
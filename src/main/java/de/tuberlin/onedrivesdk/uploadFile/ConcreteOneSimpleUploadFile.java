@@ -0,0 +1,182 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.squareup.okhttp.RequestBody;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.networking.FileRegionBody;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of OneUploadFile for small files, blocking operation.
+ * The content is sent with a single PUT request, no upload session is created.
+ * A failed upload is not resumable, it has to be started again. Pausing only delays the start.
+ */
+public class ConcreteOneSimpleUploadFile implements OneUploadFile {
+
+	private static final Logger logger = LogManager.getLogger(ConcreteOneSimpleUploadFile.class);
+	private final UploadControl control = new UploadControl();
+	private final ConcreteOneFolder parentFolder;
+	private final File fileToUpload;
+	private final ConcreteOneDriveSDK api;
+	private volatile double throughput;
+	private TransferBudget budget;
+	private TransferProgress progress;
+
+	public ConcreteOneSimpleUploadFile(ConcreteOneFolder parentFolder, File fileToUpload, ConcreteOneDriveSDK api) throws IOException {
+		this.parentFolder = checkNotNull(parentFolder);
+		this.api = checkNotNull(api);
+		if (fileToUpload == null) {
+			throw new NullPointerException("FileToUpload was null");
+		}
+		if (!fileToUpload.isFile()) {
+			throw new IOException(String.format("%s is not a File", fileToUpload.getAbsolutePath()));
+		}
+		if (!fileToUpload.canRead()) {
+			throw new IOException(String.format("File %s is not readable!", fileToUpload.getName()));
+		}
+		this.fileToUpload = fileToUpload;
+	}
+
+	@Override
+	public long fileSize() {
+		return fileToUpload.length();
+	}
+
+	@Override
+	public long uploadStatus() {
+		return control.getState() == UploadState.FINISHED ? fileSize() : 0;
+	}
+
+	@Override
+	public OneFile startUpload() throws IOException, OneDriveException {
+		if (!control.proceed()) {
+			logger.info("Upload of {} was canceled before it started", fileToUpload.getName());
+			return null;
+		}
+		try {
+			try (FileChannel channel = FileChannel.open(fileToUpload.toPath(), StandardOpenOption.READ)) {
+				long length = channel.size();
+				RequestBody content = new FileRegionBody(channel, 0, length);
+				if (budget != null) {
+					content = budget.wrap(content);
+				}
+				long sendStarted = System.nanoTime();
+				OneFile uploaded = api.uploadContent(parentFolder, fileToUpload.getName(), content, control.getTag());
+				long nanos = Math.max(System.nanoTime() - sendStarted, 1);
+				throughput = length / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+				if (progress != null) {
+					progress.record(0, length, nanos);
+				}
+				control.finish();
+				logger.info("finished upload");
+				return uploaded;
+			}
+		} catch (IOException e) {
+			if (control.getState() == UploadState.CANCELED) {
+				logger.info("Upload of {} was canceled", fileToUpload.getName());
+				return null;
+			}
+			control.fail();
+			throw e;
+		} catch (OneDriveException | RuntimeException e) {
+			control.fail();
+			throw e;
+		}
+	}
+
+	/**
+	 * Without upload session there are no chunks, the file is always sent in one piece.
+	 */
+	@Override
+	public OneUploadFile setPipelined(boolean pipelined) {
+		return this;
+	}
+
+	/**
+	 * Without upload session there are no chunks, the file is always sent in one piece.
+	 */
+	@Override
+	public OneUploadFile setAdaptiveChunkSize(boolean adaptive) {
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setTransferBudget(TransferBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setTransferListener(TransferListener listener) {
+		this.progress = listener == null ? null : new TransferProgress(fileToUpload.getName(), fileSize(), listener);
+		return this;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return (int) fileSize();
+	}
+
+	@Override
+	public double getThroughput() {
+		return throughput;
+	}
+
+	@Override
+	public UploadState getState() {
+		return control.getState();
+	}
+
+	/**
+	 * A single request can not be paused halfway, a paused upload does not start until it is resumed.
+	 */
+	@Override
+	public OneUploadFile pauseUpload() {
+		if (control.pause()) {
+			logger.info("Upload paused");
+		}
+		return this;
+	}
+
+	@Override
+	public OneUploadFile resumeUpload() {
+		if (control.resume()) {
+			logger.info("Upload resumed");
+		}
+		return this;
+	}
+
+	@Override
+	public OneUploadFile cancelUpload() {
+		if (control.cancel()) {
+			logger.info("Canceling upload");
+			api.cancelRequests(control.getTag());
+		}
+		return this;
+	}
+
+	@Override
+	public File getUploadFile() {
+		return fileToUpload;
+	}
+
+	@Override
+	public OneFile call() throws IOException, OneDriveException {
+		logger.info("Starting upload");
+		return startUpload();
+	}
+}
@@ -0,0 +1,311 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.squareup.okhttp.RequestBody;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
+import de.tuberlin.onedrivesdk.networking.OneResponse;
+import de.tuberlin.onedrivesdk.networking.PreparedRequest;
+import de.tuberlin.onedrivesdk.networking.PreparedRequestMethod;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ThreadFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of OneUploadFile for streams, blocking operation.
+ * The stream is read into a ring buffer of two chunks, so the next chunk is read while the current one
+ * is sent and no temporary file is needed. Chunks are a multiple of 320 KiB, only the last one is shorter.
+ * If the length is unknown, chunks are sent with an open total ("bytes 0-99/*") until the end of the
+ * stream was read, the last chunk carries the total. Streams which end below the simple upload
+ * threshold of the SDK are sent with a single request. The stream is closed when the upload ends.
+ * The upload can not be resumed by another process, because the stream can not be read again.
+ */
+public class ConcreteOneStreamUploadFile implements OneUploadFile {
+
+	private static final Logger logger = LogManager.getLogger(ConcreteOneStreamUploadFile.class);
+	private static final Gson gson = new Gson();
+	private static final ThreadFactory readers =
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-upload-stream-%d").build();
+
+	private final UploadControl control = new UploadControl();
+	private final ConcreteOneFolder parentFolder;
+	private final String fileName;
+	private final ReadableByteChannel source;
+	private final long declaredLength;
+	private final ConcreteOneDriveSDK api;
+	private final ChunkSizePolicy chunkSizePolicy = new ChunkSizePolicy(false);
+	private final RingBuffer ring;
+	private volatile UploadSession uploadSession;
+	private TransferBudget budget;
+	private TransferProgress progress;
+
+	/**
+	 * @param parentFolder target folder
+	 * @param fileName     name of the file in OneDrive
+	 * @param source       content, read until its end
+	 * @param length       number of bytes of the stream or -1 if unknown
+	 * @param api          sdk
+	 */
+	public ConcreteOneStreamUploadFile(ConcreteOneFolder parentFolder, String fileName, ReadableByteChannel source,
+									   long length, ConcreteOneDriveSDK api) {
+		this.parentFolder = checkNotNull(parentFolder);
+		this.fileName = checkNotNull(fileName);
+		this.source = checkNotNull(source);
+		this.api = checkNotNull(api);
+		checkArgument(length >= -1, "length must be -1 or positive");
+		this.declaredLength = length;
+		this.ring = new RingBuffer(source, 2 * chunkSizePolicy.getChunkSize());
+	}
+
+	/**
+	 * @return declared length, or the length of the read stream, -1 while unknown
+	 */
+	@Override
+	public long fileSize() {
+		return declaredLength != -1 ? declaredLength : ring.length();
+	}
+
+	@Override
+	public long uploadStatus() throws IOException, OneDriveException {
+		if (uploadSession != null) {
+			return fetchStatus().getNextRange();
+		}
+		return 0;
+	}
+
+	private UploadSession fetchStatus() throws IOException, OneDriveException {
+		OneResponse response = api.makeRequest(new PreparedRequest(uploadSession.getUploadURL(), PreparedRequestMethod.GET)
+				.setTag(control.getTag()));
+		if (response.wasSuccess()) {
+			return gson.fromJson(response.getBodyAsString(), UploadSession.class);
+		} else {
+			throw new OneDriveException(response.getBodyAsString());
+		}
+	}
+
+	@Override
+	public OneFile startUpload() throws IOException, OneDriveException {
+		Thread reader = readers.newThread(ring);
+		reader.start();
+		try {
+			long threshold = Math.min(api.getSimpleUploadThreshold(), ring.capacity());
+			long read = ring.await(threshold);
+			if (read < threshold) {
+				checkLength(read);
+				return uploadSimple(read);
+			}
+			return uploadChunks();
+		} catch (IOException e) {
+			if (control.getState() == UploadState.CANCELED) {
+				logger.info("Upload of {} was canceled", fileName);
+				return null;
+			}
+			control.fail();
+			throw e;
+		} catch (OneDriveException | RuntimeException e) {
+			control.fail();
+			throw e;
+		} finally {
+			reader.interrupt();
+			source.close();
+		}
+	}
+
+	private OneFile uploadSimple(long length) throws IOException, OneDriveException {
+		if (!control.proceed()) {
+			return null;
+		}
+		long sendStarted = System.nanoTime();
+		OneFile uploaded = api.uploadContent(parentFolder, fileName, budgeted(ring.body(0, length)), control.getTag());
+		long nanos = System.nanoTime() - sendStarted;
+		chunkSizePolicy.onSuccess(length, nanos);
+		if (progress != null) {
+			progress.record(0, length, nanos);
+		}
+		control.finish();
+		logger.info("finished upload");
+		return uploaded;
+	}
+
+	/**
+	 * Sends the stream chunk by chunk, always continuing at the next range the server expects.
+	 * Everything before that range is confirmed and released from the ring.
+	 */
+	private OneFile uploadChunks() throws IOException, OneDriveException {
+		uploadSession = api.createUploadSession(parentFolder, fileName);
+		String uploadUrl = uploadSession.getUploadURL();
+		long chunkSize = chunkSizePolicy.getChunkSize();
+
+		while (control.proceed()) {
+			RangeSet expected = uploadSession.getExpectedRanges();
+			long start = expected.first();
+			ring.release(start);
+
+			// one byte more than the chunk tells whether the chunk is the last one
+			long end = Math.min(start + chunkSize, ring.await(start + chunkSize + 1));
+			long rangeEnd = expected.endOfRange(start);
+			if (rangeEnd != -1 && rangeEnd < end) {
+				end = rangeEnd + 1;
+			}
+			long total = ring.length();
+			if (total != -1) {
+				checkLength(total);
+			} else {
+				total = declaredLength;
+			}
+			if (end <= start) {
+				throw new EOFException(String.format("Stream ended at %d, the server expects byte %d", total, start));
+			}
+
+			PreparedRequest uploadChunk = new PreparedRequest(uploadUrl, PreparedRequestMethod.PUT).setTag(control.getTag());
+			uploadChunk.setBody(budgeted(ring.body(start, end - start)));
+			uploadChunk.addHeader("Content-Length", (end - start) + "");
+			uploadChunk.addHeader("Content-Range",
+					String.format("bytes %d-%d/%s", start, end - 1, total == -1 ? "*" : total + ""));
+
+			logger.trace("Uploading chunk {} - {}", start, end - 1);
+			long sendStarted = System.nanoTime();
+			OneResponse response = api.makeRequest(uploadChunk);
+			if (response.wasSuccess()) {
+				long nanos = System.nanoTime() - sendStarted;
+				chunkSizePolicy.onSuccess(end - start, nanos);
+				if (progress != null) {
+					progress.record(start, end - start, nanos);
+				}
+				if (response.getStatusCode() == 200 || response.getStatusCode() == 201) {
+					ConcreteOneFile finishedFile = gson.fromJson(response.getBodyAsString(), ConcreteOneFile.class);
+					finishedFile.setApi(api);
+					control.finish();
+					logger.info("finished upload");
+					return finishedFile;
+				}
+				uploadSession = gson.fromJson(response.getBodyAsString(), UploadSession.class);
+			} else {
+				chunkSizePolicy.onFailure();
+				logger.info("Something went wrong while uploading last chunk. Trying to fetch upload status from server to retry");
+				logger.trace(response.getBodyAsString());
+				try {
+					uploadSession = fetchStatus();
+				} catch (OneDriveException e) {
+					throw new OneDriveException(String.format(
+							"Could not get current upload status from Server, aborting. Message was: %s", e.getMessage()));
+				}
+			}
+		}
+		return null;
+	}
+
+	private void checkLength(long length) throws IOException {
+		if (declaredLength != -1 && length != declaredLength) {
+			throw new IOException(String.format("Stream has %d bytes, %d were declared", length, declaredLength));
+		}
+	}
+
+	/**
+	 * Chunks are taken from a ring buffer of fixed size, the chunk size does not change.
+	 */
+	@Override
+	public OneUploadFile setAdaptiveChunkSize(boolean adaptive) {
+		return this;
+	}
+
+	/**
+	 * The ring buffer always reads the next chunk while the current one is sent.
+	 */
+	@Override
+	public OneUploadFile setPipelined(boolean pipelined) {
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setTransferBudget(TransferBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setTransferListener(TransferListener listener) {
+		this.progress = listener == null ? null : new TransferProgress(fileName, declaredLength, listener);
+		return this;
+	}
+
+	private RequestBody budgeted(RequestBody body) {
+		return budget == null ? body : budget.wrap(body);
+	}
+
+	@Override
+	public int getChunkSize() {
+		return chunkSizePolicy.getChunkSize();
+	}
+
+	@Override
+	public double getThroughput() {
+		return chunkSizePolicy.getThroughput();
+	}
+
+	@Override
+	public UploadState getState() {
+		return control.getState();
+	}
+
+	@Override
+	public OneUploadFile pauseUpload() {
+		if (control.pause()) {
+			logger.info("Upload paused");
+		}
+		return this;
+	}
+
+	@Override
+	public OneUploadFile resumeUpload() {
+		if (control.resume()) {
+			logger.info("Upload resumed");
+		}
+		return this;
+	}
+
+	@Override
+	public OneUploadFile cancelUpload() throws IOException, OneDriveAuthenticationException {
+		if (!control.cancel()) {
+			return this;
+		}
+		logger.info("Canceling upload");
+		api.cancelRequests(control.getTag());
+		UploadSession session = uploadSession;
+		if (session != null) {
+			api.makeRequest(session.getUploadURL(), PreparedRequestMethod.DELETE, "");
+			logger.info("Upload was canceled");
+		}
+		return this;
+	}
+
+	/**
+	 * @return null, a stream has no file
+	 */
+	@Override
+	public File getUploadFile() {
+		return null;
+	}
+
+	@Override
+	public OneFile call() throws IOException, OneDriveException {
+		logger.info("Starting upload");
+		return startUpload();
+	}
+}
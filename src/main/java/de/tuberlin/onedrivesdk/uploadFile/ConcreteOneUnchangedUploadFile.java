@@ -0,0 +1,122 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of OneUploadFile for a file the target folder already contains with the same content.
+ * Nothing is transferred, starting the upload returns the existing remote file.
+ */
+public class ConcreteOneUnchangedUploadFile implements OneUploadFile {
+
+	private static final Logger logger = LogManager.getLogger(ConcreteOneUnchangedUploadFile.class);
+	private final File fileToUpload;
+	private final OneFile existing;
+	private final UploadControl control = new UploadControl();
+
+	/**
+	 * @param fileToUpload local file
+	 * @param existing     remote file with the same content
+	 */
+	public ConcreteOneUnchangedUploadFile(File fileToUpload, OneFile existing) {
+		this.fileToUpload = checkNotNull(fileToUpload);
+		this.existing = checkNotNull(existing);
+	}
+
+	@Override
+	public long fileSize() {
+		return fileToUpload.length();
+	}
+
+	/**
+	 * @return the file size, the server already has the whole content
+	 */
+	@Override
+	public long uploadStatus() {
+		return fileSize();
+	}
+
+	@Override
+	public OneFile startUpload() throws InterruptedIOException {
+		if (!control.proceed()) {
+			return null;
+		}
+		logger.info("Skipping upload of {}, the content is unchanged", fileToUpload.getName());
+		control.finish();
+		return existing;
+	}
+
+	@Override
+	public OneUploadFile setPipelined(boolean pipelined) {
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setAdaptiveChunkSize(boolean adaptive) {
+		return this;
+	}
+
+	@Override
+	public OneUploadFile setTransferBudget(TransferBudget budget) {
+		return this;
+	}
+
+	/**
+	 * Nothing is transferred, the listener is never called.
+	 */
+	@Override
+	public OneUploadFile setTransferListener(TransferListener listener) {
+		return this;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return 0;
+	}
+
+	@Override
+	public double getThroughput() {
+		return 0;
+	}
+
+	@Override
+	public UploadState getState() {
+		return control.getState();
+	}
+
+	@Override
+	public OneUploadFile pauseUpload() {
+		control.pause();
+		return this;
+	}
+
+	@Override
+	public OneUploadFile resumeUpload() {
+		control.resume();
+		return this;
+	}
+
+	@Override
+	public OneUploadFile cancelUpload() {
+		control.cancel();
+		return this;
+	}
+
+	@Override
+	public File getUploadFile() {
+		return fileToUpload;
+	}
+
+	@Override
+	public OneFile call() throws InterruptedIOException {
+		return startUpload();
+	}
+}
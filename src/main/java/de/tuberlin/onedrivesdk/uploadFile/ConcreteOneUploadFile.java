@@ -1,41 +1,50 @@
 package de.tuberlin.onedrivesdk.uploadFile;
 
 import com.google.gson.Gson;
+import com.squareup.okhttp.RequestBody;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
 import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
 import de.tuberlin.onedrivesdk.file.OneFile;
 import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.networking.FileRegionBody;
 import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
 import de.tuberlin.onedrivesdk.networking.OneResponse;
 import de.tuberlin.onedrivesdk.networking.PreparedRequest;
 import de.tuberlin.onedrivesdk.networking.PreparedRequestMethod;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Implementation of OneUploadFile, blocking operation
+ * Implementation of OneUploadFile, blocking operation.
+ * Pause, resume and cancel may be called from any thread, see {@link UploadControl}.
  */
 public class ConcreteOneUploadFile implements OneUploadFile {
 
-    private static final int chunkSize = 320 * 1024 * 30; // (use a multiple value of 320KB, best practice of dev.onedrive)
     private static final Logger logger = LogManager.getLogger(ConcreteOneUploadFile.class);
     private static final Gson gson = new Gson();
-    private final ReentrantLock shouldRun = new ReentrantLock(true);
+    private final UploadControl control = new UploadControl();
     private File fileToUpload;
     private ConcreteOneDriveSDK api;
-    private boolean canceled = false;
-	private boolean finished = false;
 	private UploadSession uploadSession;
 	private RandomAccessFile randFile;
 	private String uploadUrl ="";
+	private boolean pipelined = false;
+	private ChunkSizePolicy chunkSizePolicy = new ChunkSizePolicy(false);
+	private UploadJournal journal;
+	private TransferBudget budget;
+	private TransferProgress progress;
 
 	public ConcreteOneUploadFile(ConcreteOneFolder parentFolder,
 			File fileToUpload, ConcreteOneDriveSDK api) throws IOException, OneDriveAuthenticationException {
@@ -57,10 +66,40 @@ public class ConcreteOneUploadFile implements OneUploadFile {
 		} else {
 			throw new NullPointerException("FileToUpload was null");
 		}
+		File journalDirectory = api.getUploadJournalDirectory();
+		if (journalDirectory != null) {
+			journal = UploadJournal.open(journalDirectory, parentFolder.getId(), fileToUpload.getName(), fileToUpload);
+			if (journal.getSession() != null && reattach(journal.getSession())) {
+				return;
+			}
+		}
 		this.uploadSession = api.createUploadSession(parentFolder, fileToUpload.getName());
 		this.uploadUrl = this.uploadSession.getUploadURL();
+		if (journal != null) {
+			journal.save(uploadSession);
+		}
     }
 
+	/**
+	 * Continues a journaled session at the next range the server expects.
+	 *
+	 * @return false if the server does no longer know the session
+	 */
+	private boolean reattach(UploadSession journaled) throws IOException {
+		this.uploadSession = journaled;
+		this.uploadUrl = journaled.getUploadURL();
+		try {
+			this.updateSession(fetchStatus());
+			long next = uploadSession.getNextRange();
+			randFile.seek(next);
+			logger.info("Reattached to the upload session of {}, continuing at {}", fileToUpload.getName(), next);
+			return true;
+		} catch (OneDriveException e) {
+			logger.info("Journaled upload session of {} is gone, creating a new one", fileToUpload.getName());
+			return false;
+		}
+	}
+
     @Override
 	public long fileSize() {
 		return fileToUpload.length();
@@ -69,82 +108,153 @@ public class ConcreteOneUploadFile implements OneUploadFile {
     @Override
 	public long uploadStatus() throws IOException, OneDriveException {
 		if (uploadSession != null) {
-            PreparedRequest request = new PreparedRequest(this.uploadUrl, PreparedRequestMethod.GET);
-			OneResponse response = api.makeRequest(request);
-            if (response.wasSuccess()) {
-                return gson.fromJson(response.getBodyAsString(), UploadSession.class).getNextRange();
-            } else {
-				throw new OneDriveException(response.getBodyAsString());
-			}
+			return fetchStatus().getNextRange();
 		}
 		return 0;
 	}
 
+	private UploadSession fetchStatus() throws IOException, OneDriveException {
+		PreparedRequest request = new PreparedRequest(this.uploadUrl, PreparedRequestMethod.GET).setTag(control.getTag());
+		OneResponse response = api.makeRequest(request);
+		if (response.wasSuccess()) {
+			return gson.fromJson(response.getBodyAsString(), UploadSession.class);
+		} else {
+			throw new OneDriveException(response.getBodyAsString());
+		}
+	}
+
+	/**
+	 * Applies a status of the server to the session and journals it, the journal has to know the
+	 * extended expiration or a later process would drop a session which is still alive.
+	 */
+	private void updateSession(UploadSession status) throws IOException {
+		this.uploadSession = uploadSession.update(status);
+		if (journal != null) {
+			journal.save(uploadSession);
+		}
+	}
+
+	/**
+	 * Gets the length of the chunk starting at the given byte. A chunk never reaches beyond the
+	 * expected range it starts in, so bytes the server already has are not sent again.
+	 */
+	private long chunkLength(RangeSet expected, long start, long chunkSize) throws IOException {
+		long last = randFile.length() - 1;
+		long rangeEnd = expected.endOfRange(start);
+		if (rangeEnd != -1) {
+			last = Math.min(last, rangeEnd);
+		}
+		return Math.min(chunkSize, last - start + 1);
+	}
+
     @Override
 	public OneFile startUpload() throws IOException, OneDriveException {
-		byte[] bytes;
+		try {
+			if (!pipelined) {
+				return uploadChunks(null);
+			}
+			try (ChunkPrefetcher prefetcher = new ChunkPrefetcher(randFile.getChannel())) {
+				return uploadChunks(prefetcher);
+			}
+		} catch (IOException e) {
+			if (control.getState() == UploadState.CANCELED) {
+				logger.info("Upload of {} was canceled", fileToUpload.getName());
+				return null;
+			}
+			control.fail();
+			throw e;
+		} catch (OneDriveException | RuntimeException e) {
+			control.fail();
+			throw e;
+		} finally {
+			randFile.close();
+		}
+	}
+
+	/**
+	 * Uploads the file chunk by chunk, always continuing at the next range the server expects.
+	 * Before every chunk the state is checked, a paused upload waits there.
+	 *
+	 * @param prefetcher reads the following chunk while the current one is sent, or null to stream every chunk from the file
+	 */
+	private OneFile uploadChunks(ChunkPrefetcher prefetcher) throws IOException, OneDriveException {
+		FileChannel channel = randFile.getChannel();
 		ConcreteOneFile finishedFile = null;
 
 		OneResponse response;
 
-		while (!canceled && !finished) {
-			shouldRun.lock();
-
+		while (control.proceed()) {
 			long currFirstByte = randFile.getFilePointer();
-			PreparedRequest uploadChunk = new PreparedRequest(this.uploadUrl, PreparedRequestMethod.PUT);
+			PreparedRequest uploadChunk = new PreparedRequest(this.uploadUrl, PreparedRequestMethod.PUT).setTag(control.getTag());
 
-			if (currFirstByte + chunkSize < randFile.length()) {
-				bytes = new byte[chunkSize];
+			RangeSet expected = uploadSession.getExpectedRanges();
+			long length = chunkLength(expected, currFirstByte, chunkSizePolicy.getChunkSize());
+			long start = currFirstByte;
+			if (prefetcher != null) {
+				// a chunk which is already read keeps the size it was planned with
+				length = Math.min(prefetcher.plannedLength(start, length), chunkLength(expected, start, Long.MAX_VALUE));
+				ByteBuffer chunk = prefetcher.take(start, length);
+				uploadChunk.setBody(budgeted(RequestBody.create(null, chunk.array(), 0, chunk.limit())));
+				// assuming this chunk is accepted, the server asks for the next missing byte after it
+				long next = expected.isEmpty() ? start + length : expected.nextAt(start + length);
+				if (next != -1 && next < randFile.length()) {
+					prefetcher.prefetch(next, chunkLength(expected, next, chunkSizePolicy.getChunkSize()));
+				}
 			} else {
-				// optimistic cast, assuming the last bit of the file is
-				// never bigger than MAXINT
-                bytes = new byte[(int) (randFile.length() - randFile.getFilePointer())];
-            }
-			long start = randFile.getFilePointer();
-			randFile.readFully(bytes);
-
-			uploadChunk.setBody(bytes);
-            uploadChunk.addHeader("Content-Length", (randFile.getFilePointer() - start) + "");
+				// the chunk is streamed from the file when the request is sent
+				uploadChunk.setBody(budgeted(new FileRegionBody(channel, start, length)));
+			}
+			randFile.seek(start + length);
+            uploadChunk.addHeader("Content-Length", length + "");
             uploadChunk.addHeader(
                     "Content-Range",
                     String.format("bytes %s-%s/%s", start, randFile.getFilePointer() - 1, randFile.length()));
 
             logger.trace("Uploading chunk {} - {}", start, randFile.getFilePointer() - 1);
+            long sendStarted = System.nanoTime();
             response = api.makeRequest(uploadChunk);
 			if (response.wasSuccess()) {
+				long nanos = System.nanoTime() - sendStarted;
+				chunkSizePolicy.onSuccess(length, nanos);
+				if (progress != null) {
+					progress.record(start, length, nanos);
+				}
 				if (response.getStatusCode()==200 || response.getStatusCode()==201) { // if last chunk upload was successful end the
-					finished = true;
                     finishedFile = gson.fromJson(response.getBodyAsString(), ConcreteOneFile.class);
-
+                    control.finish();
+                    break;
                 }else {
 					//just continue
-                    uploadSession = gson.fromJson(response.getBodyAsString(),
-							UploadSession.class);
+                    updateSession(gson.fromJson(response.getBodyAsString(), UploadSession.class));
                     randFile.seek(uploadSession.getNextRange());
 				}
 			} else {
+				chunkSizePolicy.onFailure();
 				logger.info("Something went wrong while uploading last chunk. Trying to fetch upload status from server to retry");
 				logger.trace(response.getBodyAsString());
-                response = api.makeRequest(this.uploadUrl, PreparedRequestMethod.GET, null);
+                response = api.makeRequest(new PreparedRequest(this.uploadUrl, PreparedRequestMethod.GET).setTag(control.getTag()));
 
                 if (response.wasSuccess()) {
-                    uploadSession = gson.fromJson(
-							response.getBodyAsString(), UploadSession.class);
+                    updateSession(gson.fromJson(response.getBodyAsString(), UploadSession.class));
                     randFile.seek(uploadSession.getNextRange());
-                    logger.debug("Fetched updated uploadSession. Server requests {} as next chunk",uploadSession.getNextRange());
+                    logger.debug("Fetched updated uploadSession. Server requests {} as next chunk, {} bytes in {} ranges are missing",
+                            uploadSession.getNextRange(), uploadSession.getExpectedRanges().count(randFile.length()),
+                            uploadSession.getExpectedRanges().size());
 
 				} else {
-					canceled=true;
 					logger.info("Something went wrong while uploading. Was unable to fetch the currentUpload session from the Server");
-                    randFile.close();
                     throw new OneDriveException(
                             String.format("Could not get current upload status from Server, aborting. Message was: %s", response.getBodyAsString()));
                 }
 			}
-			shouldRun.unlock();
-
 		}
-        randFile.close();
+        if (finishedFile == null) {
+            logger.info("Upload of {} was canceled", fileToUpload.getName());
+            return null;
+        }
+        if (journal != null) {
+            journal.delete();
+        }
         logger.info("finished upload");
 
 		finishedFile.setApi(api);
@@ -152,30 +262,75 @@ public class ConcreteOneUploadFile implements OneUploadFile {
 
 	}
 
+    @Override
+	public OneUploadFile setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+		return this;
+	}
+
+    @Override
+	public OneUploadFile setAdaptiveChunkSize(boolean adaptive) {
+		this.chunkSizePolicy = new ChunkSizePolicy(adaptive);
+		return this;
+	}
+
+    @Override
+	public OneUploadFile setTransferBudget(TransferBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+    @Override
+	public OneUploadFile setTransferListener(TransferListener listener) {
+		this.progress = listener == null ? null : new TransferProgress(fileToUpload.getName(), fileSize(), listener);
+		return this;
+	}
+
+	private RequestBody budgeted(RequestBody body) {
+		return budget == null ? body : budget.wrap(body);
+	}
+
+    @Override
+	public int getChunkSize() {
+		return chunkSizePolicy.getChunkSize();
+	}
+
+    @Override
+	public double getThroughput() {
+		return chunkSizePolicy.getThroughput();
+	}
+
+    @Override
+	public UploadState getState() {
+		return control.getState();
+	}
+
     @Override
 	public OneUploadFile pauseUpload() {
-		logger.info("Pausing upload");
-		shouldRun.lock();
-		logger.info("Upload paused");
+		if (control.pause()) {
+			logger.info("Upload paused");
+		}
 		return this;
 	}
 
     @Override
 	public OneUploadFile resumeUpload() {
-		logger.info("Resuming upload");
-		try{
-			shouldRun.unlock();
+		if (control.resume()) {
 			logger.info("Upload resumed");
-		}catch (IllegalMonitorStateException e) {
-			logger.info("Trying to resume an already running download");
 		}
 		return this;
 	}
 
     @Override
 	public OneUploadFile cancelUpload() throws IOException, OneDriveAuthenticationException {
+		if (!control.cancel()) {
+			return this;
+		}
 		logger.info("Canceling upload");
-		this.canceled = true;
+		api.cancelRequests(control.getTag());
+		if (journal != null) {
+			journal.delete();
+		}
 		if (uploadSession != null) {
 			api.makeRequest(this.uploadUrl,
                     PreparedRequestMethod.DELETE, "");
@@ -0,0 +1,102 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import de.tuberlin.onedrivesdk.file.OneFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * SHA1 and CRC32 of a local file, computed in a single pass, in the format of the hashes the OneDrive API
+ * reports for a file: SHA1 as hex, CRC32 as hex of its little endian bytes. Hex is compared ignoring case.
+ */
+public final class ContentHash {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String sha1;
+	private final String crc32;
+
+	private ContentHash(String sha1, String crc32) {
+		this.sha1 = sha1;
+		this.crc32 = crc32;
+	}
+
+	/**
+	 * Reads the file once and hashes it.
+	 *
+	 * @param file local file
+	 * @return hashes of the content
+	 * @throws IOException if the file can not be read
+	 */
+	public static ContentHash of(File file) throws IOException {
+		MessageDigest sha1;
+		try {
+			sha1 = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported by this JVM", e);
+		}
+		CRC32 crc32 = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			while (channel.read(buffer) != -1) {
+				sha1.update(buffer.array(), 0, buffer.position());
+				crc32.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+		}
+		return new ContentHash(toHex(sha1.digest()), ParallelCrc32.toApiHex(crc32.getValue()));
+	}
+
+	/**
+	 * Checks if a local file has the content of a remote file. The size is compared first, so changed
+	 * files of a different size are not read. If the server reports only a CRC32, it is computed in parallel.
+	 *
+	 * @param local  local file
+	 * @param remote remote file
+	 * @return true if size and the SHA1, or the CRC32 if the server reports no SHA1, are equal
+	 * @throws IOException if the file can not be read
+	 */
+	public static boolean matches(File local, OneFile remote) throws IOException {
+		if (local.length() != remote.getSize()) {
+			return false;
+		}
+		if (remote.getSHA1Hash() != null) {
+			return of(local).matches(remote);
+		}
+		return remote.getCRC32Hash() != null
+				&& ParallelCrc32.toApiHex(ParallelCrc32.checksum(local)).equalsIgnoreCase(remote.getCRC32Hash());
+	}
+
+	/**
+	 * @param remote remote file
+	 * @return true if the SHA1, or the CRC32 if the server reports no SHA1, is equal
+	 */
+	public boolean matches(OneFile remote) {
+		if (remote.getSHA1Hash() != null) {
+			return sha1.equalsIgnoreCase(remote.getSHA1Hash());
+		}
+		return remote.getCRC32Hash() != null && crc32.equalsIgnoreCase(remote.getCRC32Hash());
+	}
+
+	public String getSHA1Hash() {
+		return sha1;
+	}
+
+	public String getCRC32Hash() {
+		return crc32;
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(String.format("%02X", b & 0xFF));
+		}
+		return hex.toString();
+	}
+}
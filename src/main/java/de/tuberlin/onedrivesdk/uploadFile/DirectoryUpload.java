@@ -0,0 +1,203 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Uploads a local directory tree into a OneFolder, blocking operation.
+ * Directories are listed and created by a pool of folder workers, level by level in the order they
+ * are found, the created folders are kept in a cache from local path to remote folder.
+ * As soon as the remote folder of a directory exists, its files are handed to a TransferManager,
+ * so uploading starts while the rest of the tree is still being walked.
+ * The first failure stops scheduling further work and is thrown, symbolic links to directories are not followed.
+ */
+public class DirectoryUpload implements Callable<OneFolder> {
+
+	private static final Logger logger = LogManager.getLogger(DirectoryUpload.class);
+	private static final String DRIVE = "default";
+	private static final int DEFAULT_FOLDER_WORKERS = 4;
+	private static final int DEFAULT_UPLOAD_WORKERS = 4;
+
+	private final OneFolder target;
+	private final Path source;
+	private final ConcurrentMap<Path, OneFolder> folders = new ConcurrentHashMap<>();
+	private final AtomicInteger outstanding = new AtomicInteger();
+	private final AtomicInteger uploadedFiles = new AtomicInteger();
+	private final SettableFuture<OneFolder> result = SettableFuture.create();
+	private int folderWorkers = DEFAULT_FOLDER_WORKERS;
+	private TransferManager transfers;
+	private String driveId = DRIVE;
+	private ListeningExecutorService walker;
+
+	/**
+	 * @param target folder the directory is created in
+	 * @param source local directory
+	 */
+	public DirectoryUpload(OneFolder target, Path source) {
+		this.target = checkNotNull(target);
+		this.source = checkNotNull(source).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * @param folderWorkers number of directories listed and created at the same time
+	 * @return this
+	 */
+	public DirectoryUpload setFolderWorkers(int folderWorkers) {
+		checkArgument(folderWorkers > 0, "at least one folder worker is needed");
+		this.folderWorkers = folderWorkers;
+		return this;
+	}
+
+	/**
+	 * Uploads the files through the given manager instead of an own one with {@value #DEFAULT_UPLOAD_WORKERS} workers.
+	 * The manager is not closed by this upload.
+	 *
+	 * @param transfers manager scheduling the file uploads
+	 * @param driveId   drive of the target folder, used for the per drive limit of the manager
+	 * @return this
+	 */
+	public DirectoryUpload setTransferManager(TransferManager transfers, String driveId) {
+		this.transfers = checkNotNull(transfers);
+		this.driveId = checkNotNull(driveId);
+		return this;
+	}
+
+	/**
+	 * Gets the remote folder created for a local directory of the tree.
+	 *
+	 * @param directory local directory
+	 * @return remote folder or null if it was not created
+	 */
+	public OneFolder getRemoteFolder(Path directory) {
+		return folders.get(directory.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * @return number of files uploaded so far
+	 */
+	public int getUploadedFiles() {
+		return uploadedFiles.get();
+	}
+
+	/**
+	 * Uploads the tree.
+	 *
+	 * @return remote folder created for the local directory
+	 * @throws IOException       if the directory can not be read or a file upload failed
+	 * @throws OneDriveException if the API refused a folder or file
+	 */
+	@Override
+	public OneFolder call() throws IOException, OneDriveException {
+		if (!Files.isDirectory(source)) {
+			throw new IOException(String.format("%s is not a directory", source));
+		}
+		boolean ownTransfers = transfers == null;
+		if (ownTransfers) {
+			transfers = new TransferManager(DEFAULT_UPLOAD_WORKERS).setMaxConcurrentPerDrive(DEFAULT_UPLOAD_WORKERS);
+		}
+		walker = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(folderWorkers,
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-directory-%d").build()));
+		try {
+			walk(source);
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Directory upload was interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof OneDriveException) {
+				throw (OneDriveException) cause;
+			}
+			throw new OneDriveException("Directory upload failed", cause);
+		} finally {
+			walker.shutdownNow();
+			if (ownTransfers) {
+				transfers.close();
+				transfers = null;
+			}
+		}
+	}
+
+	private void walk(final Path directory) {
+		if (result.isDone()) {
+			return;
+		}
+		outstanding.incrementAndGet();
+		track(walker.submit(new Callable<OneFolder>() {
+			@Override
+			public OneFolder call() throws Exception {
+				OneFolder parent = directory.equals(source) ? target : folders.get(directory.getParent());
+				OneFolder created = parent.createFolder(directory.getFileName().toString());
+				folders.put(directory, created);
+				logger.debug("Created folder {} for {}", created.getId(), directory);
+
+				try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+					for (Path entry : entries) {
+						if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+							walk(entry);
+						} else if (Files.isRegularFile(entry)) {
+							upload(created, entry);
+						}
+					}
+				}
+				return created;
+			}
+		}), false);
+	}
+
+	private void upload(OneFolder folder, Path file) {
+		if (result.isDone()) {
+			return;
+		}
+		outstanding.incrementAndGet();
+		track(transfers.upload(driveId, folder, file.toFile()), true);
+	}
+
+	private <T> void track(ListenableFuture<T> work, final boolean file) {
+		Futures.addCallback(work, new FutureCallback<T>() {
+			@Override
+			public void onSuccess(T value) {
+				if (file) {
+					uploadedFiles.incrementAndGet();
+				}
+				if (outstanding.decrementAndGet() == 0) {
+					result.set(folders.get(source));
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				logger.warn("Directory upload of {} failed", source, t);
+				result.setException(t);
+			}
+		}, MoreExecutors.directExecutor());
+	}
+}
@@ -3,6 +3,8 @@ package de.tuberlin.onedrivesdk.uploadFile;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.file.OneFile;
 import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,22 +41,71 @@ public interface OneUploadFile extends Callable<OneFile> {
 	OneFile startUpload() throws IOException, OneDriveException;
 	
 	/**
-	 * Will pause the upload. Does nothing when called if the download is already paused
+	 * Enables the pipelined mode: while a chunk is sent, the next chunk is already read from disk into a second buffer.
+	 * Uses two buffers of the chunk size, must be set before the upload is started.
+	 * @param pipelined true to overlap disk reads and network transfer
+	 * @return this.OneUploadFile
+	 */
+	OneUploadFile setPipelined(boolean pipelined);
+
+	/**
+	 * Lets the chunk size follow the measured throughput and failures instead of the fixed 9.6 MiB.
+	 * Chunks stay a multiple of 320 KiB, must be set before the upload is started.
+	 * @param adaptive true to adapt the chunk size
+	 * @return this.OneUploadFile
+	 */
+	OneUploadFile setAdaptiveChunkSize(boolean adaptive);
+
+	/**
+	 * Sends the content within the given budget, e.g. to share a bandwidth limit between several uploads.
+	 * @param budget budget to count and throttle the sent bytes, null for no budget
+	 * @return this.OneUploadFile
+	 */
+	OneUploadFile setTransferBudget(TransferBudget budget);
+
+	/**
+	 * Reports every chunk the server accepted to the listener, must be set before the upload is started.
+	 * @param listener listener for the chunks, null for none
+	 * @return this.OneUploadFile
+	 */
+	OneUploadFile setTransferListener(TransferListener listener);
+
+	/**
+	 * Gets the size the next chunk is sent with
+	 * @return chunk size in bytes
+	 */
+	int getChunkSize();
+
+	/**
+	 * Gets the smoothed throughput of the chunks sent so far
+	 * @return bytes per second, 0 before the first chunk was sent
+	 */
+	double getThroughput();
+
+	/**
+	 * Gets the state of the upload
+	 * @return current state
+	 */
+	UploadState getState();
+
+	/**
+	 * Will pause the upload before the next chunk, does not block and may be called from any thread.
+	 * Does nothing when called if the upload is already paused
 	 * @return this.OneUploadFile
 	 */
 	OneUploadFile pauseUpload();
 	
 	/**
-	 * Will resume the upload if it got paused/interrupted. Calling this method on an already running upload will do nothing
+	 * Will resume the upload if it got paused, may be called from any thread. Calling this method on an already running upload will do nothing
 	 * @return this.OneUploadFile
 	 */
 	OneUploadFile resumeUpload();
 	
 	/**
-	 * Will cancel the upload completely. Calling this more than once will do nothing
-	 * Canceled uploads can't be resumed
-	 * Will block until file Upload is finished
-	 * @return the OneFile handle of the finished File or null on interruption
+	 * Will cancel the upload completely and abort the request in flight, may be called from any thread.
+	 * Calling this more than once will do nothing
+	 * Canceled uploads can't be resumed, startUpload returns null
+	 * @return this.OneUploadFile
 	 */
 	OneUploadFile cancelUpload() throws IOException, OneDriveAuthenticationException;
 	
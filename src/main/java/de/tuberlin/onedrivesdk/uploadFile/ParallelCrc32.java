@@ -0,0 +1,189 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * CRC32 of large files computed in parallel. The file is split into segments, every segment is
+ * memory-mapped and checksummed on a fork/join pool and the partial values are combined like
+ * crc32_combine of zlib, so the result equals the CRC32 of the whole file.
+ */
+public final class ParallelCrc32 {
+
+	static final long SEGMENT_SIZE = 8 * 1024 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int GF2_DIM = 32;
+	private static final ForkJoinPool pool = new ForkJoinPool();
+
+	private ParallelCrc32() {
+	}
+
+	/**
+	 * Computes the CRC32 on a shared pool with one thread per core.
+	 *
+	 * @param file local file
+	 * @return CRC32 value
+	 * @throws IOException if the file can not be read
+	 */
+	public static long checksum(File file) throws IOException {
+		return checksum(file, pool);
+	}
+
+	/**
+	 * Computes the CRC32 on the given pool.
+	 *
+	 * @param file local file
+	 * @param pool pool computing the segments
+	 * @return CRC32 value
+	 * @throws IOException if the file can not be read
+	 */
+	public static long checksum(File file, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			try {
+				return pool.invoke(new Segment(channel, 0, channel.size()));
+			} catch (SegmentException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Formats a CRC32 like the crc32Hash of the OneDrive API, as hex of its little endian bytes.
+	 *
+	 * @param crc CRC32 value
+	 * @return hex string
+	 */
+	public static String toApiHex(long crc) {
+		return String.format("%02X%02X%02X%02X", crc & 0xFF, (crc >> 8) & 0xFF, (crc >> 16) & 0xFF, (crc >> 24) & 0xFF);
+	}
+
+	/**
+	 * Combines the CRC32 of two consecutive blocks into the CRC32 of both.
+	 *
+	 * @param crc1 CRC32 of the first block
+	 * @param crc2 CRC32 of the second block
+	 * @param len2 length of the second block
+	 * @return CRC32 of the first block followed by the second
+	 */
+	static long combine(long crc1, long crc2, long len2) {
+		if (len2 <= 0) {
+			return crc1;
+		}
+		long[] even = new long[GF2_DIM];
+		long[] odd = new long[GF2_DIM];
+
+		// operator for one zero bit
+		odd[0] = 0xEDB88320L;
+		long row = 1;
+		for (int n = 1; n < GF2_DIM; n++) {
+			odd[n] = row;
+			row <<= 1;
+		}
+		// operators for two and four zero bits
+		square(even, odd);
+		square(odd, even);
+
+		// apply len2 zero bytes to crc1, the first squaring gives the operator for one zero byte
+		do {
+			square(even, odd);
+			if ((len2 & 1) != 0) {
+				crc1 = times(even, crc1);
+			}
+			len2 >>= 1;
+			if (len2 == 0) {
+				break;
+			}
+			square(odd, even);
+			if ((len2 & 1) != 0) {
+				crc1 = times(odd, crc1);
+			}
+			len2 >>= 1;
+		} while (len2 != 0);
+		return crc1 ^ crc2;
+	}
+
+	private static long times(long[] matrix, long vector) {
+		long sum = 0;
+		for (int i = 0; vector != 0; i++, vector >>>= 1) {
+			if ((vector & 1) != 0) {
+				sum ^= matrix[i];
+			}
+		}
+		return sum;
+	}
+
+	private static void square(long[] square, long[] matrix) {
+		for (int n = 0; n < GF2_DIM; n++) {
+			square[n] = times(matrix, matrix[n]);
+		}
+	}
+
+	/**
+	 * CRC32 of a part of the file, split in halves until it fits into one segment.
+	 */
+	private static class Segment extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long position;
+		private final long length;
+
+		private Segment(FileChannel channel, long position, long length) {
+			this.channel = channel;
+			this.position = position;
+			this.length = length;
+		}
+
+		@Override
+		protected Long compute() {
+			if (length <= SEGMENT_SIZE) {
+				return checksum();
+			}
+			long half = (length / 2 + SEGMENT_SIZE - 1) / SEGMENT_SIZE * SEGMENT_SIZE;
+			Segment first = new Segment(channel, position, half);
+			Segment second = new Segment(channel, position + half, length - half);
+			second.fork();
+			long crc1 = first.compute();
+			return combine(crc1, second.join(), length - half);
+		}
+
+		private long checksum() {
+			CRC32 crc = new CRC32();
+			if (length == 0) {
+				return crc.getValue();
+			}
+			try {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				// CRC32 only accepts ByteBuffers from Java 8 on
+				byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, length)];
+				while (mapped.hasRemaining()) {
+					int read = Math.min(buffer.length, mapped.remaining());
+					mapped.get(buffer, 0, read);
+					crc.update(buffer, 0, read);
+				}
+				return crc.getValue();
+			} catch (IOException e) {
+				throw new SegmentException(e);
+			}
+		}
+	}
+
+	private static class SegmentException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private SegmentException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+}
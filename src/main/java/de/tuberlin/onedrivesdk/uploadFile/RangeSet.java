@@ -0,0 +1,105 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+/**
+ * Immutable set of byte ranges as reported in the nextExpectedRanges of an upload session,
+ * e.g. ["0-1023", "4096-"]. The ranges are parsed once into a flat array of inclusive
+ * [first, last] pairs, an open range ends at Long.MAX_VALUE.
+ */
+final class RangeSet {
+
+	static final RangeSet EMPTY = new RangeSet(new long[0]);
+
+	private final long[] bounds;
+
+	private RangeSet(long[] bounds) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Parses ranges in the format "first-last" or "first-".
+	 *
+	 * @param ranges ranges in ascending order, may be null
+	 * @return range set
+	 * @throws NumberFormatException if a range is malformed
+	 */
+	static RangeSet parse(String[] ranges) {
+		if (ranges == null || ranges.length == 0) {
+			return EMPTY;
+		}
+		long[] bounds = new long[ranges.length * 2];
+		for (int i = 0; i < ranges.length; i++) {
+			String range = ranges[i].trim();
+			int dash = range.indexOf('-');
+			if (dash == -1) {
+				bounds[2 * i] = Long.parseLong(range);
+				bounds[2 * i + 1] = bounds[2 * i];
+			} else {
+				bounds[2 * i] = Long.parseLong(range.substring(0, dash));
+				bounds[2 * i + 1] = dash == range.length() - 1 ? Long.MAX_VALUE : Long.parseLong(range.substring(dash + 1));
+			}
+		}
+		return new RangeSet(bounds);
+	}
+
+	boolean isEmpty() {
+		return bounds.length == 0;
+	}
+
+	int size() {
+		return bounds.length / 2;
+	}
+
+	/**
+	 * @return first byte of the first range, 0 if the set is empty
+	 */
+	long first() {
+		return isEmpty() ? 0 : bounds[0];
+	}
+
+	/**
+	 * Gets the first byte of the set at or after the given position.
+	 *
+	 * @param position byte position
+	 * @return next contained byte or -1 if there is none
+	 */
+	long nextAt(long position) {
+		for (int i = 0; i < bounds.length; i += 2) {
+			if (bounds[i + 1] >= position && bounds[i + 1] >= bounds[i]) {
+				return Math.max(bounds[i], position);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the last byte of the range containing the position.
+	 *
+	 * @param position byte position
+	 * @return inclusive end of the range, Long.MAX_VALUE for an open range, -1 if the position is not contained
+	 */
+	long endOfRange(long position) {
+		for (int i = 0; i < bounds.length; i += 2) {
+			if (bounds[i] <= position && position <= bounds[i + 1]) {
+				return bounds[i + 1];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Counts the bytes of the set within a file of the given length.
+	 *
+	 * @param length file length
+	 * @return number of bytes
+	 */
+	long count(long length) {
+		long count = 0;
+		for (int i = 0; i < bounds.length; i += 2) {
+			long last = Math.min(bounds[i + 1], length - 1);
+			if (last >= bounds[i]) {
+				count += last - bounds[i] + 1;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,158 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Bounded ring buffer between a stream and the chunks of an upload.
+ * A reader thread fills the ring from the stream while chunks are sent from it, bytes stay in the
+ * ring until they are released, i.e. until the server confirmed them, so a rejected chunk can be
+ * sent again although the stream can not be rewound. Positions are absolute offsets in the stream.
+ */
+class RingBuffer implements Runnable {
+
+	private final ReadableByteChannel source;
+	private final byte[] ring;
+	private long filled;
+	private long released;
+	private boolean complete;
+	private IOException failure;
+
+	/**
+	 * @param source   stream to read
+	 * @param capacity number of bytes which are held at most
+	 */
+	RingBuffer(ReadableByteChannel source, int capacity) {
+		this.source = source;
+		this.ring = new byte[capacity];
+	}
+
+	/**
+	 * Reads the stream until its end, blocking while the ring is full.
+	 */
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				int offset;
+				int space;
+				synchronized (this) {
+					while (filled - released == ring.length) {
+						wait();
+					}
+					offset = (int) (filled % ring.length);
+					space = (int) Math.min(ring.length - offset, ring.length - (filled - released));
+				}
+				int read = source.read(ByteBuffer.wrap(ring, offset, space));
+				synchronized (this) {
+					if (read == -1) {
+						complete = true;
+						notifyAll();
+						return;
+					}
+					filled += read;
+					notifyAll();
+				}
+			}
+		} catch (IOException e) {
+			fail(e);
+		} catch (InterruptedException e) {
+			fail(new InterruptedIOException("Interrupted while reading the stream"));
+		}
+	}
+
+	private synchronized void fail(IOException e) {
+		failure = e;
+		notifyAll();
+	}
+
+	/**
+	 * Waits until the stream was read up to the given position or ended.
+	 *
+	 * @param end position to wait for, at most one ring capacity after the released position
+	 * @return position up to which the stream was read, smaller than end only at the end of the stream
+	 * @throws IOException if reading the stream failed
+	 */
+	synchronized long await(long end) throws IOException {
+		while (filled < end && !complete && failure == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the stream");
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return Math.min(end, filled);
+	}
+
+	/**
+	 * @return length of the stream or -1 if its end was not reached yet
+	 */
+	synchronized long length() {
+		return complete ? filled : -1;
+	}
+
+	/**
+	 * @return number of bytes the ring holds at most
+	 */
+	int capacity() {
+		return ring.length;
+	}
+
+	/**
+	 * Frees the ring up to the given position, these bytes can not be sent anymore.
+	 *
+	 * @param position first byte which is still needed
+	 */
+	synchronized void release(long position) {
+		if (position > released) {
+			released = Math.min(position, filled);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Creates a body sending a part of the ring, the part must have been awaited and not released.
+	 *
+	 * @param start  first byte
+	 * @param length number of bytes
+	 * @return body of the chunk
+	 */
+	RequestBody body(final long start, final long length) {
+		synchronized (this) {
+			if (start < released || start + length > filled) {
+				throw new IllegalStateException(String.format("Bytes %d-%d are not in the ring", start, start + length - 1));
+			}
+		}
+		return new RequestBody() {
+			@Override
+			public MediaType contentType() {
+				return null;
+			}
+
+			@Override
+			public long contentLength() {
+				return length;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				int offset = (int) (start % ring.length);
+				int first = (int) Math.min(length, ring.length - offset);
+				sink.write(ring, offset, first);
+				if (first < length) {
+					sink.write(ring, 0, (int) (length - first));
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,271 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import de.tuberlin.onedrivesdk.networking.TransferBudget;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Schedules many upload jobs over a bounded pool of workers.
+ * Jobs wait in a queue per drive, at most maxConcurrentPerDrive jobs of a drive run at the same time.
+ * All uploads share one TransferBudget, which caps the combined rate and counts the sent bytes.
+ * Jobs are only handed to the workers when they may run, so thousands of queued jobs cost no threads
+ * and, with {@link #upload(String, OneFolder, File)}, no upload sessions.
+ */
+public class TransferManager implements AutoCloseable {
+
+	private static final Logger logger = LogManager.getLogger(TransferManager.class);
+	private static final int DEFAULT_CONCURRENT_PER_DRIVE = 4;
+
+	private final ListeningExecutorService workers;
+	private final TransferBudget budget = new TransferBudget();
+	private final Map<String, DriveQueue> drives = new HashMap<>();
+	private int maxConcurrentPerDrive = DEFAULT_CONCURRENT_PER_DRIVE;
+	private long firstStart;
+	private boolean closed;
+
+	/**
+	 * @param workers maximal number of jobs running at the same time
+	 */
+	public TransferManager(int workers) {
+		checkArgument(workers > 0, "at least one worker is needed");
+		this.workers = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(workers,
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("onedrive-transfer-%d").build()));
+	}
+
+	/**
+	 * Limits the number of running jobs per drive, jobs already running are not affected.
+	 *
+	 * @param maxConcurrentPerDrive maximal number of running jobs of one drive
+	 * @return this
+	 */
+	public TransferManager setMaxConcurrentPerDrive(int maxConcurrentPerDrive) {
+		checkArgument(maxConcurrentPerDrive > 0, "at least one job per drive has to run");
+		synchronized (this) {
+			this.maxConcurrentPerDrive = maxConcurrentPerDrive;
+		}
+		dispatchAll();
+		return this;
+	}
+
+	/**
+	 * Caps the combined rate of all uploads of this manager.
+	 *
+	 * @param bytesPerSecond rate, 0 removes the limit
+	 * @return this
+	 */
+	public TransferManager setMaxBytesPerSecond(double bytesPerSecond) {
+		budget.setMaxBytesPerSecond(bytesPerSecond);
+		return this;
+	}
+
+	/**
+	 * Queues the upload of a file. The OneUploadFile is only created when the job starts.
+	 *
+	 * @param driveId drive of the target folder
+	 * @param folder  target folder
+	 * @param file    file to upload
+	 * @return future of the uploaded file
+	 */
+	public ListenableFuture<OneFile> upload(String driveId, final OneFolder folder, final File file) {
+		checkNotNull(folder);
+		checkNotNull(file);
+		return submit(driveId, new Callable<OneFile>() {
+			@Override
+			public OneFile call() throws Exception {
+				return folder.uploadFile(file).setTransferBudget(budget).call();
+			}
+		});
+	}
+
+	/**
+	 * Queues a job. If the job is a OneUploadFile it is sent within the budget of this manager.
+	 *
+	 * @param driveId drive the job transfers to
+	 * @param job     job to run
+	 * @return future of the result, canceling it removes a queued job
+	 */
+	public ListenableFuture<OneFile> submit(String driveId, Callable<OneFile> job) {
+		checkNotNull(driveId);
+		checkNotNull(job);
+		if (job instanceof OneUploadFile) {
+			((OneUploadFile) job).setTransferBudget(budget);
+		}
+		DriveQueue drive;
+		Job queued = new Job(job);
+		synchronized (this) {
+			checkState(!closed, "TransferManager is closed");
+			drive = drives.get(driveId);
+			if (drive == null) {
+				drive = new DriveQueue(driveId);
+				drives.put(driveId, drive);
+			}
+			drive.pending.add(queued);
+			queued.drive = drive;
+		}
+		dispatch(drive);
+		return queued.result;
+	}
+
+	/**
+	 * @return bytes sent by all uploads so far
+	 */
+	public long getTransferredBytes() {
+		return budget.getTransferred();
+	}
+
+	/**
+	 * @return average rate in bytes per second since the first job started, 0 before
+	 */
+	public double getThroughput() {
+		long started;
+		synchronized (this) {
+			started = firstStart;
+		}
+		if (started == 0) {
+			return 0;
+		}
+		long nanos = Math.max(System.nanoTime() - started, 1);
+		return getTransferredBytes() / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * @return number of running jobs
+	 */
+	public synchronized int getActiveCount() {
+		int active = 0;
+		for (DriveQueue drive : drives.values()) {
+			active += drive.running;
+		}
+		return active;
+	}
+
+	/**
+	 * @return number of jobs waiting to run
+	 */
+	public synchronized int getQueuedCount() {
+		int queued = 0;
+		for (DriveQueue drive : drives.values()) {
+			queued += drive.pending.size();
+		}
+		return queued;
+	}
+
+	/**
+	 * Cancels all queued jobs, running jobs are finished.
+	 */
+	@Override
+	public void close() {
+		Queue<Job> canceled = new ArrayDeque<>();
+		synchronized (this) {
+			closed = true;
+			for (DriveQueue drive : drives.values()) {
+				canceled.addAll(drive.pending);
+				drive.pending.clear();
+			}
+		}
+		for (Job job : canceled) {
+			job.result.cancel(false);
+		}
+		workers.shutdown();
+	}
+
+	private void dispatchAll() {
+		DriveQueue[] all;
+		synchronized (this) {
+			all = drives.values().toArray(new DriveQueue[drives.size()]);
+		}
+		for (DriveQueue drive : all) {
+			dispatch(drive);
+		}
+	}
+
+	private void dispatch(DriveQueue drive) {
+		while (true) {
+			Job next;
+			synchronized (this) {
+				if (drive.running >= maxConcurrentPerDrive) {
+					return;
+				}
+				next = drive.pending.poll();
+				if (next == null) {
+					return;
+				}
+				if (next.result.isCancelled()) {
+					continue;
+				}
+				drive.running++;
+				if (firstStart == 0) {
+					firstStart = System.nanoTime();
+				}
+			}
+			try {
+				workers.execute(next);
+			} catch (RejectedExecutionException e) {
+				finished(drive);
+				next.result.setException(e);
+			}
+		}
+	}
+
+	private void finished(DriveQueue drive) {
+		synchronized (this) {
+			drive.running--;
+		}
+	}
+
+	private static class DriveQueue {
+		private final String driveId;
+		private final Queue<Job> pending = new ArrayDeque<>();
+		private int running;
+
+		private DriveQueue(String driveId) {
+			this.driveId = driveId;
+		}
+	}
+
+	private class Job implements Runnable {
+		private final Callable<OneFile> task;
+		private final SettableFuture<OneFile> result = SettableFuture.create();
+		private DriveQueue drive;
+
+		private Job(Callable<OneFile> task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!result.isCancelled()) {
+					result.set(task.call());
+				}
+			} catch (Throwable t) {
+				logger.warn("Transfer to drive {} failed", drive.driveId, t);
+				result.setException(t);
+			} finally {
+				finished(drive);
+				dispatch(drive);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free state machine of an upload. Any thread may pause, resume or cancel without blocking,
+ * the uploading thread checks the state at every chunk boundary and parks there while the upload is paused.
+ * Requests of the upload are tagged, so that a cancel can abort the request in flight.
+ */
+final class UploadControl {
+
+	private final AtomicReference<UploadState> state = new AtomicReference<>(UploadState.ACTIVE);
+	private final Object tag = new Object();
+	private volatile Thread uploader;
+
+	UploadState getState() {
+		return state.get();
+	}
+
+	/**
+	 * @return tag of all requests of the upload
+	 */
+	Object getTag() {
+		return tag;
+	}
+
+	/**
+	 * @return true if the upload was active and is paused now
+	 */
+	boolean pause() {
+		return state.compareAndSet(UploadState.ACTIVE, UploadState.PAUSED);
+	}
+
+	/**
+	 * @return true if the upload was paused and is active again
+	 */
+	boolean resume() {
+		if (state.compareAndSet(UploadState.PAUSED, UploadState.ACTIVE)) {
+			LockSupport.unpark(uploader);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the upload was not in a final state and is canceled now
+	 */
+	boolean cancel() {
+		return end(UploadState.CANCELED);
+	}
+
+	/**
+	 * @return true if the upload was not in a final state and is finished now
+	 */
+	boolean finish() {
+		return end(UploadState.FINISHED);
+	}
+
+	/**
+	 * @return true if the upload was not in a final state and failed now
+	 */
+	boolean fail() {
+		return end(UploadState.FAILED);
+	}
+
+	private boolean end(UploadState target) {
+		while (true) {
+			UploadState current = state.get();
+			if (current.isFinal()) {
+				return false;
+			}
+			if (state.compareAndSet(current, target)) {
+				LockSupport.unpark(uploader);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Called by the uploading thread before each chunk, waits while the upload is paused.
+	 *
+	 * @return true if the next chunk should be sent, false if the upload reached a final state
+	 * @throws InterruptedIOException if the thread was interrupted while the upload was paused
+	 */
+	boolean proceed() throws InterruptedIOException {
+		uploader = Thread.currentThread();
+		while (state.get() == UploadState.PAUSED) {
+			LockSupport.park(this);
+			if (Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while the upload was paused");
+			}
+		}
+		return state.get() == UploadState.ACTIVE;
+	}
+}
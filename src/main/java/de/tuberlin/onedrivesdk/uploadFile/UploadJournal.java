@@ -0,0 +1,100 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local record of an upload session, so that a new process can continue an interrupted upload.
+ * One small JSON file per upload is kept in the journal directory, it is identified by the target
+ * folder and name and by the path, size and modification time of the source file.
+ * The record is only used while the source file is unchanged and the session has not expired.
+ */
+class UploadJournal {
+
+	private static final Logger logger = LogManager.getLogger(UploadJournal.class);
+	private static final Gson gson = new Gson();
+
+	private transient File record;
+	private String key;
+	private UploadSession session;
+
+	private UploadJournal() {
+	}
+
+	/**
+	 * Opens the record of an upload.
+	 *
+	 * @param directory journal directory, created if missing
+	 * @param parentId  id of the target folder
+	 * @param name      name of the file in OneDrive
+	 * @param source    file which is uploaded
+	 * @return record, without session if there is no usable one
+	 */
+	static UploadJournal open(File directory, String parentId, String name, File source) {
+		String key = String.format("%s|%s|%s|%d|%d", parentId, name, source.getAbsolutePath(), source.length(), source.lastModified());
+		File record = new File(directory, Hashing.sha1().hashString(key, StandardCharsets.UTF_8).toString() + ".json");
+
+		UploadJournal journal = null;
+		if (record.isFile()) {
+			try (Reader reader = Files.newBufferedReader(record.toPath(), StandardCharsets.UTF_8)) {
+				journal = gson.fromJson(reader, UploadJournal.class);
+			} catch (IOException | JsonParseException e) {
+				logger.warn("Ignoring unreadable upload journal {}", record, e);
+			}
+		}
+		if (journal == null || !key.equals(journal.key)) {
+			journal = new UploadJournal();
+			journal.key = key;
+		} else if (journal.session == null || journal.session.getUploadURL() == null || journal.session.isExpired()) {
+			logger.info("Journaled upload session of {} is no longer usable", name);
+			journal.session = null;
+		}
+		journal.record = record;
+		return journal;
+	}
+
+	/**
+	 * @return the journaled session or null
+	 */
+	UploadSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Persists the session of the upload.
+	 *
+	 * @param session current session
+	 * @throws IOException if the record can not be written
+	 */
+	void save(UploadSession session) throws IOException {
+		this.session = session;
+		Files.createDirectories(record.getParentFile().toPath());
+		File temp = new File(record.getPath() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(this, writer);
+		}
+		Files.move(temp.toPath(), record.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Removes the record once the upload is finished or canceled.
+	 */
+	void delete() {
+		try {
+			Files.deleteIfExists(record.toPath());
+		} catch (IOException e) {
+			logger.warn("Could not remove upload journal {}", record, e);
+		}
+	}
+}
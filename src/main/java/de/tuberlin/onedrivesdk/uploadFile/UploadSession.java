@@ -1,6 +1,12 @@
 package de.tuberlin.onedrivesdk.uploadFile;
 
 import de.tuberlin.onedrivesdk.OneDriveException;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 /**
  * THis internal class keeps a representation of the UploadSession provided by the OneDriveAPI
  * @author timmeey
@@ -10,7 +16,9 @@ public class UploadSession {
 	
 	private String uploadUrl;
 	private long expirationDate;
+	private String expirationDateTime;
 	private String[] nextExpectedRanges;
+	private transient RangeSet expectedRanges;
 	private UploadSession() {}
 
 	/**
@@ -23,22 +31,77 @@ public class UploadSession {
 
 	/**
 	 * Gets the expiration Date of this UploadSession
-	 * @return the expiration Date of this upload session
+	 * @return the expiration Date of this upload session in milliseconds since the epoch, 0 if unknown
 	 */
 	public long getExpirationDate() {
+		if (expirationDate == 0 && expirationDateTime != null) {
+			// Format: 2015-01-29T09:21:55.523Z, always UTC
+			String dateTime = expirationDateTime.replace("Z", "");
+			if (dateTime.indexOf('.') != -1) {
+				dateTime = dateTime.substring(0, dateTime.indexOf('.'));
+			}
+			DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+			df.setTimeZone(TimeZone.getTimeZone("UTC"));
+			try {
+				expirationDate = df.parse(dateTime).getTime();
+			} catch (ParseException e) {
+				return 0;
+			}
+		}
 		return expirationDate;
 	}
 
+	/**
+	 * Checks if the session expires within the next minute, a session without known expiration never expires.
+	 * @return true if the session can no longer be used
+	 */
+	public boolean isExpired() {
+		long expiration = getExpirationDate();
+		return expiration != 0 && expiration < System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+	}
+
+	/**
+	 * Combines this session with a status the server answered for an accepted fragment or a status request.
+	 * Such a status carries no upload URL, but OneDrive extends the expiration with every fragment.
+	 *
+	 * @param status session state returned by the server
+	 * @return session with the upload URL of this one and the expiration and missing ranges of the status
+	 */
+	UploadSession update(UploadSession status) {
+		UploadSession updated = new UploadSession();
+		updated.uploadUrl = status.uploadUrl != null ? status.uploadUrl : uploadUrl;
+		if (status.expirationDateTime != null) {
+			updated.expirationDateTime = status.expirationDateTime;
+		} else {
+			updated.expirationDateTime = expirationDateTime;
+			updated.expirationDate = expirationDate;
+		}
+		updated.nextExpectedRanges = status.nextExpectedRanges;
+		return updated;
+	}
+
 	/**
 	 * THis method will parse the ranges that are still missing acording to OneDriveAPI and will give the start next range that needs to be uploaded
 	 * @return the next byte positin that should be uploaded
 	 * @throws OneDriveException
 	 */
 	public long getNextRange() throws OneDriveException {
-		if(nextExpectedRanges!= null && nextExpectedRanges.length>=1) {
-			return Long.parseLong(nextExpectedRanges[0].split("-")[0]);
-		}else {
-            return 0;
+		return getExpectedRanges().first();
+	}
+
+	/**
+	 * Gets all ranges the server is still missing, parsed once per session state
+	 * @return missing ranges, empty if the server did not report any
+	 * @throws OneDriveException if the ranges are malformed
+	 */
+	RangeSet getExpectedRanges() throws OneDriveException {
+		if (expectedRanges == null) {
+			try {
+				expectedRanges = RangeSet.parse(nextExpectedRanges);
+			} catch (NumberFormatException e) {
+				throw new OneDriveException("API - response could not be processed", e);
+			}
 		}
+		return expectedRanges;
 	}
 }
@@ -0,0 +1,35 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+/**
+ * States of a OneUploadFile. An upload starts ACTIVE and ends in one of the final states
+ * FINISHED, CANCELED or FAILED, only ACTIVE and PAUSED change into each other.
+ */
+public enum UploadState {
+	/**
+	 * Created or sending, the next chunk is sent
+	 */
+	ACTIVE,
+	/**
+	 * Waits before the next chunk until it is resumed
+	 */
+	PAUSED,
+	/**
+	 * All content was accepted by the server
+	 */
+	FINISHED,
+	/**
+	 * Canceled by the user, the upload can not be resumed
+	 */
+	CANCELED,
+	/**
+	 * Aborted because of an error
+	 */
+	FAILED;
+
+	/**
+	 * @return true if the state does not change anymore
+	 */
+	public boolean isFinal() {
+		return this == FINISHED || this == CANCELED || this == FAILED;
+	}
+}
@@ -3,7 +3,9 @@ package de.tuberlin;
 import de.tuberlin.onedrivesdk.common.OneItem;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.OneItemPage;
 import de.tuberlin.onedrivesdk.common.OneItemType;
+import de.tuberlin.onedrivesdk.file.OneFile;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -98,6 +100,71 @@ public class OneItemTest {
         Assert.assertEquals(1, items.size());
     }
 
+    @Test
+    public void testParseItemPage() {
+        String json = "{\"value\":[{},{\"file\":{}}],\"@odata.nextLink\":\"https://api.onedrive.com/v1.0/next\"}";
+        OneItemPage page = null;
+        try {
+            page = OneItem.parseItemPageFromJson(json, OneItemType.ALL);
+        } catch (Exception e) {
+            Assert.fail();
+        }
+        Assert.assertEquals(2, page.getItems().size());
+        Assert.assertTrue(page.hasNextPage());
+        Assert.assertEquals("https://api.onedrive.com/v1.0/next", page.getNextLink());
+    }
+
+    @Test
+    public void testParseLastItemPage() {
+        String json = "{\"value\":[{},{\"file\":{}}]}";
+        OneItemPage page = null;
+        try {
+            page = OneItem.parseItemPageFromJson(json, OneItemType.FILE);
+        } catch (Exception e) {
+            Assert.fail();
+        }
+        Assert.assertEquals(1, page.getItems().size());
+        Assert.assertFalse(page.hasNextPage());
+    }
+
+    @Test
+    public void testParseItemsSkipsUnknownAttributes() {
+        String json = "{\"@odata.context\":\"ctx\",\"value\":[{\"id\":\"1\",\"folder\":{\"childCount\":3}},"
+                + "{\"id\":\"2\",\"extra\":[1,{\"a\":null}],\"file\":{\"hashes\":{\"sha1Hash\":\"ABC\"}}}]}";
+        List<OneItem> items = null;
+        try {
+            items = OneItem.parseItemsFromJson(json);
+        } catch (Exception e) {
+            Assert.fail(e.getMessage());
+        }
+        Assert.assertEquals(2, items.size());
+        Assert.assertTrue(items.get(0).isFolder());
+        Assert.assertEquals("1", items.get(0).getId());
+        Assert.assertTrue(items.get(1).isFile());
+        Assert.assertEquals("ABC", ((OneFile) items.get(1)).getSHA1Hash());
+    }
+
+    @Test
+    public void testParseErrorResponse() {
+        String json = "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"Item does not exist\"}}";
+        try {
+            OneItem.parseItemsFromJson(json);
+            Assert.fail();
+        } catch (OneDriveException e) {
+            Assert.assertTrue(e.getMessage().contains("itemNotFound"));
+        } catch (Exception e) {
+            Assert.fail(e.getMessage());
+        }
+        try {
+            OneItem.fromJSON(json);
+            Assert.fail();
+        } catch (OneDriveException e) {
+            Assert.assertTrue(e.getMessage().contains("itemNotFound"));
+        } catch (Exception e) {
+            Assert.fail(e.getMessage());
+        }
+    }
+
     @Test
     public void testParseCorruptItems() {
         String json = "{\"val\":[{},{\"file\":{}}]}";
@@ -0,0 +1,101 @@
+package de.tuberlin.onedrivesdk.benchmark;
+
+import com.squareup.okhttp.RequestBody;
+import de.tuberlin.onedrivesdk.networking.FileRegionBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the request body of an upload chunk streamed from the file with the former
+ * body which read the whole chunk into a fresh byte array first.
+ * Run main() to include the allocation profile (gc.alloc.rate.norm), the body is written into a discarding sink.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkUploadBenchmark {
+
+    /**
+     * Chunk size of ConcreteOneUploadFile
+     */
+    private static final int CHUNK_SIZE = 320 * 1024 * 30;
+
+    private File file;
+    private RandomAccessFile randFile;
+    private BufferedSink sink;
+
+    @Setup
+    public void createFile() throws IOException {
+        file = File.createTempFile("ChunkUploadBenchmark", ".bin");
+        byte[] content = new byte[CHUNK_SIZE];
+        new Random(1).nextBytes(content);
+        com.google.common.io.Files.write(content, file);
+        randFile = new RandomAccessFile(file, "r");
+        sink = Okio.buffer(new Sink() {
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                source.skip(byteCount);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public Timeout timeout() {
+                return Timeout.NONE;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    @TearDown
+    public void removeFile() throws IOException {
+        randFile.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void fileRegionBody() throws IOException {
+        new FileRegionBody(randFile.getChannel(), 0, CHUNK_SIZE).writeTo(sink);
+        sink.flush();
+    }
+
+    @Benchmark
+    public void byteArrayBody() throws IOException {
+        byte[] bytes = new byte[CHUNK_SIZE];
+        randFile.seek(0);
+        randFile.readFully(bytes);
+        RequestBody.create(null, bytes).writeTo(sink);
+        sink.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChunkUploadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package de.tuberlin.onedrivesdk.benchmark;
+
+import de.tuberlin.onedrivesdk.uploadFile.ParallelCrc32;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Compares the CRC32 of a file computed by ParallelCrc32 with a single streaming pass.
+ * The file is read once before measuring, so both variants mostly read from the page cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Crc32Benchmark {
+
+    private static final int FILE_SIZE = 256 * 1024 * 1024;
+
+    private File file;
+
+    @Setup
+    public void createFile() throws IOException {
+        file = File.createTempFile("Crc32Benchmark", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(1).nextBytes(block);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            for (int written = 0; written < FILE_SIZE; written += block.length) {
+                channel.write(ByteBuffer.wrap(block));
+            }
+        }
+        streaming();
+    }
+
+    @TearDown
+    public void removeFile() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                crc.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Benchmark
+    public long parallel() throws IOException {
+        return ParallelCrc32.checksum(file);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(Crc32Benchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,103 @@
+package de.tuberlin.onedrivesdk.benchmark;
+
+import com.google.gson.Gson;
+import de.tuberlin.onedrivesdk.common.OneItem;
+import de.tuberlin.onedrivesdk.common.OneItemType;
+import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming item decoder with the former json-simple based decoding of a children page.
+ * The streaming decoder still builds a JsonObject per item to find its facet, but no tree of the whole page
+ * and no intermediate JSON strings.
+ * Results are reported per item, run main() to include the allocation profile (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ItemListingBenchmark.ITEMS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemListingBenchmark {
+
+    static final int ITEMS = 5000;
+
+    private String json;
+
+    @Setup
+    public void createPage() {
+        StringBuilder page = new StringBuilder("{\"@odata.context\":\"https://api.onedrive.com/v1.0/$metadata#drives('1')/items('1')/children\",\"value\":[");
+        for (int i = 0; i < ITEMS; i++) {
+            if (i > 0) {
+                page.append(',');
+            }
+            page.append("{\"createdBy\":{\"user\":{\"displayName\":\"Test User\",\"id\":\"3fb7bc4f1939ee71\"}},")
+                    .append("\"createdDateTime\":\"2015-05-01T10:30:19.55Z\",")
+                    .append("\"cTag\":\"adDozRkI3QkM0RjE5MzlFRTcxITEwNS42MzU2NjA0MTQ2MTQwMDAwMDA\",")
+                    .append("\"eTag\":\"aM0ZCN0JDNEYxOTM5RUU3MSExMDUuMQ\",")
+                    .append("\"id\":\"3FB7BC4F1939EE71!").append(1000 + i).append("\",")
+                    .append("\"lastModifiedBy\":{\"user\":{\"displayName\":\"Test User\",\"id\":\"3fb7bc4f1939ee71\"}},")
+                    .append("\"lastModifiedDateTime\":\"2015-05-01T10:30:19.55Z\",")
+                    .append("\"name\":\"item-").append(i).append("\",")
+                    .append("\"parentReference\":{\"driveId\":\"3fb7bc4f1939ee71\",\"id\":\"3FB7BC4F1939EE71!103\",\"path\":\"/drive/root:\"},")
+                    .append("\"size\":").append(i * 1024L).append(',')
+                    .append("\"webUrl\":\"https://onedrive.live.com/redir?resid=3FB7BC4F1939EE71!").append(1000 + i).append("\",");
+            if (i % 4 == 0) {
+                page.append("\"folder\":{\"childCount\":").append(i % 17).append("}}");
+            } else {
+                page.append("\"@content.downloadUrl\":\"https://public.bn1302.livefilestore.com/").append(i).append("\",")
+                        .append("\"file\":{\"hashes\":{\"crc32Hash\":\"4A3B2C1D\",\"sha1Hash\":\"A1B2C3D4E5F60718293A4B5C6D7E8F9012345678\"},")
+                        .append("\"mimeType\":\"image/jpeg\"}}");
+            }
+        }
+        json = page.append("],\"@odata.nextLink\":\"https://api.onedrive.com/v1.0/drive/items/1/children?$skiptoken=abc\"}").toString();
+    }
+
+    @Benchmark
+    public Object streamingDecoder() throws Exception {
+        return OneItem.parseItemPageFromJson(json, OneItemType.ALL);
+    }
+
+    /**
+     * The decoding pipeline before the streaming decoder: parse the page, re-serialize every item
+     * and parse it again for the error check, the type check and the data binding.
+     */
+    @Benchmark
+    public void legacyDecoder(Blackhole hole) throws Exception {
+        JSONObject root = (JSONObject) new JSONParser().parse(json);
+        JSONArray values = (JSONArray) root.get("value");
+        for (Object object : values) {
+            String itemJson = ((JSONObject) object).toJSONString();
+            JSONObject item = (JSONObject) new JSONParser().parse(itemJson);
+            JSONObject error = (JSONObject) new JSONParser().parse(itemJson);
+            hole.consume(error.containsKey("error"));
+            Gson gson = new Gson();
+            if (item.containsKey("file")) {
+                hole.consume(gson.fromJson(itemJson, ConcreteOneFile.class));
+            } else {
+                hole.consume(gson.fromJson(itemJson, ConcreteOneFolder.class));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ItemListingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
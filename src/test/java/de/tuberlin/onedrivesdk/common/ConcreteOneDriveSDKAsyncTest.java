@@ -0,0 +1,100 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ConcreteOneDriveSDKAsyncTest {
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        api = server.connect();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testConcurrentGetFolderById() throws Exception {
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String id = exchange.getRequestURI().getPath().substring("/v1.0/drive/items/".length());
+                StandInServer.reply(exchange, 200, StandInServer.folderJson(id, "folder " + id));
+            }
+        });
+        api.setMaxAsyncRequests(64, 16);
+
+        List<ListenableFuture<OneFolder>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(api.getFolderByIdAsync("id" + i));
+        }
+
+        List<OneFolder> folders = Futures.allAsList(futures).get(30, TimeUnit.SECONDS);
+        for (int i = 0; i < folders.size(); i++) {
+            Assert.assertEquals("id" + i, folders.get(i).getId());
+        }
+        Assert.assertEquals(200, server.getRequests().size());
+    }
+
+    @Test
+    public void testGetChildrenAsyncFollowsNextLink() throws Exception {
+        final String nextLink = server.getBaseUrl() + "drive/items/parent/children2";
+        server.on("drive/items/parent/children", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (exchange.getRequestURI().getPath().endsWith("children2")) {
+                    StandInServer.reply(exchange, 200, "{\"value\":[" + StandInServer.folderJson("c", "c") + "]}");
+                } else {
+                    StandInServer.reply(exchange, 200, "{\"value\":[" + StandInServer.folderJson("a", "a") + ","
+                            + StandInServer.fileJson("b", "b", 1) + "],\"@odata.nextLink\":\"" + nextLink + "\"}");
+                }
+            }
+        });
+        ConcreteOneFolder parent = (ConcreteOneFolder) OneItem.fromJSON(StandInServer.folderJson("parent", "parent"));
+
+        List<OneItem> children = api.getChildrenAsync(parent, OneItemType.ALL).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(3, children.size());
+        Assert.assertEquals("c", children.get(2).getId());
+        Assert.assertEquals(2, server.getRequests().size());
+    }
+
+    @Test
+    public void testDeleteItemAsyncFailure() throws Exception {
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                StandInServer.reply(exchange, 404, "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"gone\"}}");
+            }
+        });
+        OneItem item = OneItem.fromJSON(StandInServer.fileJson("missing", "missing", 1));
+
+        try {
+            api.deleteItemAsync(item).get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof OneDriveException);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.networking.OneResponse;
+import de.tuberlin.onedrivesdk.networking.PreparedRequest;
+import de.tuberlin.onedrivesdk.networking.PreparedRequestMethod;
+import de.tuberlin.onedrivesdk.networking.RetryPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries against a stand-in server which throttles the first requests.
+ */
+public class ConcreteOneDriveSDKRetryTest {
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private final AtomicInteger throttled = new AtomicInteger();
+    private volatile int status = 429;
+    private volatile String retryAfter;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (throttled.getAndDecrement() > 0) {
+                    if (retryAfter != null) {
+                        exchange.getResponseHeaders().set("Retry-After", retryAfter);
+                    }
+                    StandInServer.reply(exchange, status, "{\"error\":{\"code\":\"activityLimitReached\",\"message\":\"slow down\"}}");
+                    return;
+                }
+                StandInServer.reply(exchange, 200, StandInServer.folderJson("folder", "folder"));
+            }
+        });
+        api = server.connect();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testThrottledRequestIsRetried() throws Exception {
+        throttled.set(3);
+
+        OneResponse response = api.makeRequest(new PreparedRequest("drive/items/folder", PreparedRequestMethod.GET));
+
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals(3, response.getRetries());
+        Assert.assertEquals(3, api.getRetryCount());
+        Assert.assertEquals(4, server.getRequests().size());
+    }
+
+    @Test
+    public void testRetryAfterIsWaitedFor() throws Exception {
+        throttled.set(1);
+        retryAfter = "1";
+
+        long started = System.nanoTime();
+        OneResponse response = api.makeRequest(new PreparedRequest("drive/items/folder", PreparedRequestMethod.GET));
+
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+
+    @Test
+    public void testRetryBudgetIsLimited() throws Exception {
+        throttled.set(100);
+        api.setRetryPolicy(api.getRetryPolicy().setMaxRetries(2));
+
+        OneResponse response = api.makeRequest(new PreparedRequest("drive/items/folder", PreparedRequestMethod.GET));
+
+        Assert.assertEquals(429, response.getStatusCode());
+        Assert.assertEquals(2, response.getRetries());
+        Assert.assertEquals(3, server.getRequests().size());
+    }
+
+    @Test
+    public void testServerErrorOfPostIsNotRetried() throws Exception {
+        throttled.set(1);
+        status = 500;
+
+        OneResponse response = api.makeRequest("drive/items/folder/children", PreparedRequestMethod.POST, "{}");
+
+        Assert.assertEquals(500, response.getStatusCode());
+        Assert.assertEquals(0, response.getRetries());
+        Assert.assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void testAsyncRequestIsRetried() throws Exception {
+        throttled.set(2);
+        status = 503;
+
+        OneResponse response = api.makeRequestAsync(new PreparedRequest("drive/items/folder", PreparedRequestMethod.GET))
+                .get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals(2, response.getRetries());
+    }
+
+    @Test
+    public void testDisconnectFailsWaitingAsyncRetry() throws Exception {
+        throttled.set(1);
+        retryAfter = "30";
+
+        ListenableFuture<OneResponse> response = api.makeRequestAsync(
+                new PreparedRequest("drive/items/folder", PreparedRequestMethod.GET));
+        while (api.getRetryCount() == 0) {
+            Thread.sleep(10);
+        }
+        api.disconnect();
+
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            Assert.fail("the retry must not be sent after disconnect");
+        } catch (ExecutionException expected) {
+            Assert.assertTrue(expected.getCause() instanceof IOException);
+        }
+        Assert.assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void testConcurrencySettlesBelowThrottlingThreshold() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        server.on("drive/root", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    if (inFlight.incrementAndGet() > 4) {
+                        rejected.incrementAndGet();
+                        StandInServer.reply(exchange, 429, "{}");
+                        return;
+                    }
+                    Thread.sleep(20);
+                    StandInServer.reply(exchange, 200, StandInServer.folderJson("root", "root"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        api.setRetryPolicy(api.getRetryPolicy().setMaxRetries(20));
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < 160; i++) {
+            statuses.add(callers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return api.makeRequest(new PreparedRequest("drive/root", PreparedRequestMethod.GET)).getStatusCode();
+                }
+            }));
+        }
+        for (Future<Integer> status : statuses) {
+            Assert.assertEquals(200, (int) status.get(60, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+
+        // 16 callers, but the limiter keeps the requests in flight around the 4 the server accepts
+        Assert.assertTrue(api.getConcurrencyLimiter().getLimit("drive") <= 8);
+        Assert.assertTrue(rejected.get() < 60);
+    }
+
+    @Test
+    public void testCancelAbandonsWaitingRetry() throws Exception {
+        final Object tag = new Object();
+        final CountDownLatch waiting = new CountDownLatch(1);
+        server.on("drive/root", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Retry-After", "30");
+                StandInServer.reply(exchange, 503, "{}");
+                waiting.countDown();
+            }
+        });
+        Thread canceler = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    waiting.await();
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                api.cancelRequests(tag);
+            }
+        };
+        canceler.start();
+
+        long started = System.nanoTime();
+        try {
+            api.makeRequest(new PreparedRequest("drive/root", PreparedRequestMethod.GET).setTag(tag));
+            Assert.fail("the canceled request must fail");
+        } catch (IOException expected) {
+            Assert.assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(10));
+        }
+        Assert.assertEquals(1, server.getRequests().size());
+    }
+}
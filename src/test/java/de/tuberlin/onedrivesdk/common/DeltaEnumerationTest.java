@@ -0,0 +1,138 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delta enumeration of a folder against a stand-in server which hands out the tokens t1 and t2,
+ * t0 is no longer accepted.
+ */
+public class DeltaEnumerationTest {
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private File tokens;
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        server.on("drive/items/root", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getQuery();
+                if (!exchange.getRequestURI().getPath().endsWith("/view.delta")) {
+                    StandInServer.reply(exchange, 200, StandInServer.folderJson("root", "root"));
+                    return;
+                }
+                queries.add(query == null ? "" : query.replaceAll("&?access_token=[^&]*", ""));
+                if (query.contains("token=t0")) {
+                    StandInServer.reply(exchange, 410, "{\"error\":{\"code\":\"resyncRequired\",\"message\":\"resync\"}}");
+                } else if (query.contains("token=t1")) {
+                    StandInServer.reply(exchange, 200, String.format("{\"value\":[%s],\"@delta.token\":\"t2\"}",
+                            StandInServer.fileJson("b", "b.txt", 2)));
+                } else if (query.contains("page=2")) {
+                    StandInServer.reply(exchange, 200, String.format("{\"value\":[%s,%s],\"@delta.token\":\"t1\"}",
+                            StandInServer.fileJson("b", "b.txt", 1),
+                            "{\"id\":\"c\",\"name\":\"c.txt\",\"deleted\":{},\"file\":{}}"));
+                } else {
+                    StandInServer.reply(exchange, 200, String.format("{\"value\":[%s],\"@odata.nextLink\":\"%s\"}",
+                            StandInServer.fileJson("a", "a.txt", 1), server.getBaseUrl() + "drive/items/root/view.delta?page=2"));
+                }
+            }
+        });
+        api = server.connect();
+        tokens = Files.createTempDir();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+        for (File token : tokens.listFiles()) {
+            token.delete();
+        }
+        tokens.delete();
+    }
+
+    private static List<String> idsOf(DeltaEnumeration changes) {
+        List<String> ids = new ArrayList<>();
+        for (OneItem item : changes) {
+            ids.add(item.getId() + (item.isDeleted() ? " deleted" : ""));
+        }
+        return ids;
+    }
+
+    @Test
+    public void testNextRunOnlyFetchesChanges() throws Exception {
+        OneFolder root = api.getFolderById("root");
+        DeltaTokenStore store = new FileDeltaTokenStore(tokens);
+
+        DeltaEnumeration full = root.delta(store);
+        Assert.assertEquals(3, idsOf(full).size());
+        Assert.assertEquals("t1", full.getDeltaToken());
+        Assert.assertEquals("t1", store.load("folder:root"));
+
+        DeltaEnumeration changes = root.delta(store);
+        Assert.assertEquals("t1", changes.getStartToken());
+        Assert.assertEquals("[b]", idsOf(changes).toString());
+        Assert.assertEquals("t2", new FileDeltaTokenStore(tokens).load("folder:root"));
+        Assert.assertEquals("[, page=2, token=t1]", queries.toString());
+    }
+
+    @Test
+    public void testPagesAreFetchedWhileConsumed() throws Exception {
+        DeltaEnumeration full = api.getFolderById("root").delta((String) null);
+        Iterator<OneItem> items = full.iterator();
+
+        Assert.assertTrue(queries.isEmpty());
+        Assert.assertEquals("a", items.next().getId());
+        Assert.assertEquals(1, queries.size());
+        Assert.assertEquals("b", items.next().getId());
+        Assert.assertTrue(items.next().isDeleted());
+        Assert.assertNull(full.getDeltaToken());
+        Assert.assertFalse(items.hasNext());
+        Assert.assertEquals("t1", full.getDeltaToken());
+    }
+
+    @Test
+    public void testInterruptedRunKeepsOldToken() throws Exception {
+        DeltaTokenStore store = new FileDeltaTokenStore(tokens);
+        store.save("folder:root", "t1");
+
+        Iterator<OneItem> partial = api.getFolderById("root").delta(store).iterator();
+        partial.next();
+
+        Assert.assertEquals("t1", store.load("folder:root"));
+        Assert.assertNull(store.load("folder:other"));
+    }
+
+    @Test
+    public void testRejectedTokenStartsOver() throws Exception {
+        DeltaEnumeration changes = api.getFolderById("root").delta("t0");
+
+        Assert.assertEquals("[a, b, c deleted]", idsOf(changes).toString());
+        Assert.assertTrue(changes.isResync());
+        Assert.assertEquals("t1", changes.getDeltaToken());
+        Assert.assertEquals("[token=t0, , page=2]", queries.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEnumerationIsIteratedOnce() throws Exception {
+        DeltaEnumeration changes = api.getFolderById("root").delta((String) null);
+        idsOf(changes);
+        changes.iterator();
+    }
+}
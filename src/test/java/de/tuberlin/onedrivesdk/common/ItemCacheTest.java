@@ -0,0 +1,110 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conditional requests against a stand-in server which answers 304 for a matching If-None-Match.
+ */
+public class ItemCacheTest {
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private final List<String> conditions = Collections.synchronizedList(new ArrayList<String>());
+    private volatile boolean changed;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String id = exchange.getRequestURI().getPath().substring("/v1.0/drive/items/".length());
+                if ("DELETE".equals(exchange.getRequestMethod())) {
+                    StandInServer.reply(exchange, 204, (String) null);
+                    return;
+                }
+                String json = id.startsWith("file")
+                        ? StandInServer.fileJson(id, id + ".bin", 42)
+                        : StandInServer.folderJson(id, id);
+                if (changed) {
+                    json = json.replace("etag-" + id, "etag-" + id + "-2");
+                }
+                String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+                conditions.add(String.valueOf(condition));
+                if (condition != null && json.contains("\"eTag\":\"" + condition + "\"")) {
+                    StandInServer.reply(exchange, 304, (String) null);
+                    return;
+                }
+                StandInServer.reply(exchange, 200, json);
+            }
+        });
+        api = server.connect();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testUnchangedItemIsServedFromCache() throws Exception {
+        OneFolder first = api.getFolderById("folder");
+        OneFolder second = api.getFolderById("folder");
+        OneFolder refreshed = second.refresh();
+
+        Assert.assertSame(first, second);
+        Assert.assertSame(first, refreshed);
+        Assert.assertEquals(3, server.getRequests().size());
+        Assert.assertEquals("[null, etag-folder, etag-folder]", conditions.toString());
+        Assert.assertEquals(2, api.getItemCache().getHitCount());
+        Assert.assertEquals(1, api.getItemCache().getMissCount());
+    }
+
+    @Test
+    public void testChangedItemIsFetchedAgain() throws Exception {
+        OneFile first = api.getFileById("file1");
+        changed = true;
+        OneFile second = api.getFileById("file1");
+        OneFile third = api.getFileByIdAsync("file1").get();
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("etag-file1-2", second.getETag());
+        Assert.assertSame(second, third);
+        Assert.assertEquals(1, api.getItemCache().getHitCount());
+        Assert.assertEquals(2, api.getItemCache().getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedItemIsEvicted() throws Exception {
+        api.setItemCache(new ItemCache(2));
+        api.getFolderById("a");
+        api.getFolderById("b");
+        api.getFolderById("a");
+        api.getFolderById("c");
+        api.getFolderById("b");
+
+        Assert.assertEquals("[null, null, etag-a, null, null]", conditions.toString());
+        Assert.assertEquals(2, api.getItemCache().size());
+    }
+
+    @Test
+    public void testDeletedItemIsInvalidated() throws Exception {
+        OneFolder folder = api.getFolderById("folder");
+        folder.delete();
+        api.getFolderById("folder");
+
+        Assert.assertEquals("[null, null]", conditions.toString());
+    }
+}
@@ -0,0 +1,195 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Path resolution against a stand-in server holding a small folder tree.
+ */
+public class PathCacheTest {
+
+    private static final Pattern NAME = Pattern.compile("\"name\": \"([^\"]+)\"");
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private final Map<String, String> idsByPath = new ConcurrentHashMap<>();
+    private final Map<String, String> pathsById = new ConcurrentHashMap<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        add("archive", "/archive");
+        add("year", "/archive/2026");
+        add("month", "/archive/2026/10");
+        server.on("drive/root:", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = URLDecoder.decode(exchange.getRequestURI().getPath(), "UTF-8");
+                path = path.substring("/v1.0/drive/root:".length(), path.length() - ":/".length());
+                String id = idsByPath.get(path);
+                if (id == null) {
+                    StandInServer.reply(exchange, 404, "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"missing\"}}");
+                } else {
+                    StandInServer.reply(exchange, 200, json(id));
+                }
+            }
+        });
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String id = exchange.getRequestURI().getPath().substring("/v1.0/drive/items/".length());
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    Matcher name = NAME.matcher(new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+                    name.find();
+                    String parent = id.substring(0, id.indexOf('/'));
+                    String created = "new-" + name.group(1);
+                    add(created, pathsById.get(parent) + "/" + name.group(1));
+                    StandInServer.reply(exchange, 201, json(created));
+                    return;
+                }
+                if ("DELETE".equals(exchange.getRequestMethod())) {
+                    String removed = pathsById.remove(id);
+                    for (String path : idsByPath.keySet()) {
+                        if (path.startsWith(removed)) {
+                            pathsById.remove(idsByPath.remove(path));
+                        }
+                    }
+                    StandInServer.reply(exchange, 204, (String) null);
+                    return;
+                }
+                if (!pathsById.containsKey(id)) {
+                    StandInServer.reply(exchange, 404, "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"missing\"}}");
+                } else if (("etag-" + id).equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    StandInServer.reply(exchange, 304, (String) null);
+                } else {
+                    StandInServer.reply(exchange, 200, json(id));
+                }
+            }
+        });
+        api = server.connect();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    private void add(String id, String path) {
+        idsByPath.put(path, id);
+        pathsById.put(id, path);
+    }
+
+    private String json(String id) {
+        String path = pathsById.get(id);
+        String parent = path.substring(0, path.lastIndexOf('/'));
+        return String.format("{\"id\":\"%s\",\"name\":\"%s\",\"eTag\":\"etag-%s\",\"folder\":{\"childCount\":0},"
+                + "\"parentReference\":{\"id\":\"%s\",\"path\":\"/drive/root:%s\"}}",
+                id, path.substring(path.lastIndexOf('/') + 1), id, idsByPath.get(parent), parent);
+    }
+
+    @Test
+    public void testRepeatedResolutionIsLocal() throws Exception {
+        OneFolder first = api.getFolderByPath("/archive/2026/10");
+        OneFolder second = api.getFolderByPath("Archive/2026/10/");
+
+        Assert.assertEquals("month", first.getId());
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, server.getRequests().size());
+        Assert.assertEquals(1, api.getPathCache().getHitCount());
+    }
+
+    @Test
+    public void testExpiredPathIsRevalidatedByETag() throws Exception {
+        api.setPathCache(new PathCache(100, 0, 0, TimeUnit.MILLISECONDS));
+        api.getFolderByPath("/archive/2026");
+        OneFolder again = api.getFolderByPath("/archive/2026");
+
+        Assert.assertEquals("year", again.getId());
+        Assert.assertEquals("GET /v1.0/drive/items/year", server.getRequests().get(1));
+        Assert.assertEquals(1, api.getPathCache().getRevalidationCount());
+        Assert.assertEquals(1, api.getItemCache().getHitCount());
+    }
+
+    @Test
+    public void testMissingPathIsCachedUntilCreated() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try {
+                api.getFolderByPath("/archive/new");
+                Assert.fail("the path does not exist yet");
+            } catch (OneDriveException expected) {
+                Assert.assertTrue(expected.getMessage().contains("itemNotFound"));
+            }
+        }
+        Assert.assertEquals(1, server.getRequests().size());
+
+        api.createFolder(api.getFolderByPath("/archive"), "new");
+        OneFolder created = api.getFolderByPath("/archive/new");
+
+        Assert.assertEquals("new-new", created.getId());
+    }
+
+    @Test
+    public void testDeleteInvalidatesPathsBelow() throws Exception {
+        OneFolder year = api.getFolderByPath("/archive/2026");
+        api.getFolderByPath("/archive/2026/10");
+        year.delete();
+
+        try {
+            api.getFolderByPath("/archive/2026/10");
+            Assert.fail("the folder was deleted");
+        } catch (OneDriveException expected) {
+            Assert.assertEquals("GET /v1.0/drive/root:/archive/2026/10:/", server.getRequests().get(3));
+        }
+        Assert.assertEquals("archive", api.getFolderByPath("/archive").getId());
+    }
+
+    @Test
+    public void testDeleteOfFolderFetchedByIdInvalidatesPathsBelow() throws Exception {
+        api.getFolderByPath("/archive/2026/10");
+        OneFolder year = api.getFolderById("year");
+        year.delete();
+
+        try {
+            api.getFolderByPath("/archive/2026/10");
+            Assert.fail("the folder was deleted");
+        } catch (OneDriveException expected) {
+            Assert.assertEquals("GET /v1.0/drive/root:/archive/2026/10:/", server.getRequests().get(3));
+        }
+    }
+
+    @Test
+    public void testDeleteOfFolderWithoutPathClearsCache() throws Exception {
+        api.getFolderByPath("/archive/2026/10");
+        OneItem year = ConcreteOneFolder.fromJSON("{\"id\":\"year\",\"name\":\"2026\",\"folder\":{}}");
+
+        api.getPathCache().invalidateItem(year);
+
+        Assert.assertEquals(0, api.getPathCache().size());
+    }
+
+    @Test
+    public void testPaths() throws Exception {
+        Assert.assertEquals("/archive/2026", PathCache.normalize("/Archive//2026/"));
+        Assert.assertEquals("", PathCache.normalize("/"));
+        OneItem item = ConcreteOneFolder.fromJSON(
+                "{\"id\":\"x\",\"name\":\"10\",\"parentReference\":{\"path\":\"/drives/abc/root:/archive/2026\"}}");
+        Assert.assertEquals("/archive/2026/10", PathCache.pathOf(item));
+    }
+}
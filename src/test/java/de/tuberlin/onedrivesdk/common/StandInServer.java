@@ -0,0 +1,127 @@
+package de.tuberlin.onedrivesdk.common;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.tuberlin.onedrivesdk.networking.OneDriveSession;
+import de.tuberlin.onedrivesdk.networking.RetryPolicy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the OneDrive API used by unit tests.
+ * Handlers are registered per path prefix, every received request is recorded as "METHOD /path".
+ */
+public class StandInServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    public StandInServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Gets the URL the SDK uses instead of https://api.onedrive.com/v1.0/
+     *
+     * @return base url
+     */
+    public String getBaseUrl() {
+        return String.format("http://127.0.0.1:%d/v1.0/", server.getAddress().getPort());
+    }
+
+    /**
+     * Registers a handler for all requests below the given api path, e.g. "drive/items/".
+     *
+     * @param apiPath path relative to the base url
+     * @param handler
+     * @return this
+     */
+    public StandInServer on(String apiPath, final HttpHandler handler) {
+        server.createContext("/v1.0/" + apiPath, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+                try {
+                    handler.handle(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Creates an authenticated SDK talking to this server. Retries wait only a few milliseconds.
+     *
+     * @return sdk
+     */
+    public ConcreteOneDriveSDK connect() {
+        OneDriveSession session = OneDriveSession.initializeSession(new OkHttpClient(), "clientId", "clientSecret",
+                null, OneDriveScope.READWRITE);
+        session.setAccessToken("token");
+        session.setExpiresIn(3600);
+        session.setLastRefresh(System.currentTimeMillis());
+        ConcreteOneDriveSDK sdk = ConcreteOneDriveSDK.createFromSession(session, getBaseUrl());
+        sdk.setRetryPolicy(new RetryPolicy()
+                .setBaseDelay(1, TimeUnit.MILLISECONDS)
+                .setMaxDelay(10, TimeUnit.MILLISECONDS));
+        return sdk;
+    }
+
+    public List<String> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends a JSON response, a status of 204 or 304 is sent without body.
+     */
+    public static void reply(HttpExchange exchange, int status, String json) throws IOException {
+        reply(exchange, status, json == null ? null : json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void reply(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null || status == 204 || status == 304) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Minimal item JSON as returned by the OneDrive API.
+     */
+    public static String folderJson(String id, String name) {
+        return String.format("{\"id\":\"%s\",\"name\":\"%s\",\"eTag\":\"etag-%s\",\"folder\":{\"childCount\":0}}", id, name, id);
+    }
+
+    public static String fileJson(String id, String name, long size) {
+        return String.format("{\"id\":\"%s\",\"name\":\"%s\",\"eTag\":\"etag-%s\",\"size\":%d,\"file\":{\"hashes\":{},\"mimeType\":\"application/octet-stream\"}}",
+                id, name, id, size);
+    }
+}
@@ -0,0 +1,330 @@
+package de.tuberlin.onedrivesdk.download;
+
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.downloadFile.ConcreteOneDownloadFile;
+import de.tuberlin.onedrivesdk.file.ConcreteOneFile;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcreteOneDownloadFileTest {
+
+    private static final int SEGMENT_SIZE = 512 * 1024;
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private File destination;
+    private final byte[] content = new byte[3 * 1024 * 1024 + 17];
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicBoolean brokenOff = new AtomicBoolean();
+    private final AtomicBoolean breakStream = new AtomicBoolean();
+    private final AtomicReference<String> currentETag = new AtomicReference<>("etag-file");
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(42).nextBytes(content);
+        destination = File.createTempFile("TestOneSDKDownload", ".bin");
+        server = new StandInServer();
+        api = server.connect();
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", server.getBaseUrl() + "content/file");
+                StandInServer.reply(exchange, 302, (byte[]) null);
+            }
+        });
+        server.on("content/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range == null && breakStream.compareAndSet(true, false)) {
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content, 0, content.length / 2);
+                    exchange.getResponseBody().flush();
+                    return;
+                }
+                if (range == null) {
+                    ranges.add("full");
+                    StandInServer.reply(exchange, 200, content);
+                    return;
+                }
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                if (ifRange != null && !ifRange.equals(currentETag.get())) {
+                    ranges.add("changed");
+                    StandInServer.reply(exchange, 200, content);
+                    return;
+                }
+                ranges.add(range);
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                int first = Integer.parseInt(bounds[0]);
+                int last = Integer.parseInt(bounds[1]);
+                exchange.sendResponseHeaders(206, last - first + 1);
+                // the first request of the second segment breaks off halfway
+                int end = first == SEGMENT_SIZE && brokenOff.compareAndSet(false, true) ? first + SEGMENT_SIZE / 2 : last + 1;
+                exchange.getResponseBody().write(content, first, end - first);
+                exchange.getResponseBody().flush();
+            }
+        });
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+        destination.delete();
+        new File(destination.getPath() + ".partial").delete();
+    }
+
+    @Test
+    public void testStreamingDownloadReplacesExistingContent() throws Exception {
+        Files.write(new byte[content.length + 1000], destination);
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+
+        new ConcreteOneDownloadFile(file, api, destination).setBufferSize(4096).startDownload();
+
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+    }
+
+    @Test
+    public void testRangedDownloadRetriesBrokenSegment() throws Exception {
+        Files.write(new byte[content.length + 1000], destination);
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+
+        new ConcreteOneDownloadFile(file, api, destination)
+                .setConnections(4)
+                .setSegmentSize(SEGMENT_SIZE)
+                .startDownload();
+
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+        // 7 segments and one retry which only asks for the missing half
+        Assert.assertEquals(8, ranges.size());
+        Assert.assertTrue(ranges.contains(String.format("bytes=%d-%d", SEGMENT_SIZE + SEGMENT_SIZE / 2, 2 * SEGMENT_SIZE - 1)));
+        Assert.assertTrue(ranges.contains(String.format("bytes=%d-%d", 6 * SEGMENT_SIZE, content.length - 1)));
+    }
+
+    @Test
+    public void testListenerReceivesSegments() throws Exception {
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+        final List<Long> chunks = Collections.synchronizedList(new ArrayList<Long>());
+        final long[] transferred = {0};
+
+        new ConcreteOneDownloadFile(file, api, destination)
+                .setConnections(4)
+                .setSegmentSize(SEGMENT_SIZE)
+                .setTransferListener(new TransferListener() {
+                    @Override
+                    public void onChunk(TransferProgress progress) {
+                        chunks.add(progress.getBytes());
+                        transferred[0] = progress.getTransferred();
+                        Assert.assertTrue(progress.getRoundTripNanos() > 0);
+                    }
+                })
+                .startDownload();
+
+        // the second segment breaks off halfway, both halves are reported
+        Assert.assertEquals(8, chunks.size());
+        Assert.assertTrue(chunks.contains((long) SEGMENT_SIZE / 2));
+        Assert.assertEquals(content.length, transferred[0]);
+    }
+
+    @Test
+    public void testStreamingDownloadReportsEverySegmentSize() throws Exception {
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+        final List<String> chunks = new ArrayList<>();
+
+        // the buffer size does not divide the segment size, the reads have to stop at the boundaries
+        new ConcreteOneDownloadFile(file, api, destination)
+                .setBufferSize(1000)
+                .setSegmentSize(1024 * 1024)
+                .setTransferListener(new TransferListener() {
+                    @Override
+                    public void onChunk(TransferProgress progress) {
+                        chunks.add(progress.getPosition() + "+" + progress.getBytes());
+                    }
+                })
+                .startDownload();
+
+        Assert.assertEquals(Arrays.asList("0+1048576", "1048576+1048576", "2097152+1048576", "3145728+17"), chunks);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRangedDownloadFailsAfterRetries() throws Exception {
+        server.on("content/broken", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                StandInServer.reply(exchange, 503, "{}");
+            }
+        });
+        server.on("drive/items/broken", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", server.getBaseUrl() + "content/broken");
+                StandInServer.reply(exchange, 302, (byte[]) null);
+            }
+        });
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("broken", "broken.bin", content.length));
+
+        new ConcreteOneDownloadFile(file, api, destination)
+                .setConnections(2)
+                .setSegmentSize(SEGMENT_SIZE)
+                .setSegmentRetries(1)
+                .startDownload();
+    }
+
+    @Test
+    public void testFailedSegmentLetsOtherSegmentsFinishTheirWrites() throws Exception {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        server.on("content/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String[] bounds = exchange.getRequestHeaders().getFirst("Range").substring("bytes=".length()).split("-");
+                int first = Integer.parseInt(bounds[0]);
+                int last = Integer.parseInt(bounds[1]);
+                if (first == SEGMENT_SIZE && failing.get()) {
+                    StandInServer.reply(exchange, 503, "{}");
+                    return;
+                }
+                exchange.sendResponseHeaders(206, last - first + 1);
+                for (int position = first; position <= last; position += 64 * 1024) {
+                    exchange.getResponseBody().write(content, position, Math.min(64 * 1024, last + 1 - position));
+                    exchange.getResponseBody().flush();
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        server.on("drive/items/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", server.getBaseUrl() + "content/slow");
+                StandInServer.reply(exchange, 302, (byte[]) null);
+            }
+        });
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("slow", "slow.bin", content.length));
+
+        try {
+            new ConcreteOneDownloadFile(file, api, destination)
+                    .setConnections(3)
+                    .setSegmentSize(SEGMENT_SIZE)
+                    .setSegmentRetries(0)
+                    .startDownload();
+            Assert.fail("the second segment must fail the download");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("status 503"));
+        }
+
+        // the ranges recorded by the other segments were really written
+        failing.set(false);
+        new ConcreteOneDownloadFile(file, api, destination).setConnections(3).setSegmentSize(SEGMENT_SIZE).startDownload();
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+    }
+
+    @Test
+    public void testInterruptedDownloadResumesMissingRange() throws Exception {
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+        File partial = new File(destination.getPath() + ".partial");
+        breakStream.set(true);
+        brokenOff.set(true);
+
+        try {
+            new ConcreteOneDownloadFile(file, api, destination).startDownload();
+            Assert.fail("the broken stream must fail the download");
+        } catch (IOException expected) {
+            Assert.assertTrue(partial.isFile());
+        }
+
+        new ConcreteOneDownloadFile(file, api, destination).startDownload();
+
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+        Assert.assertFalse(partial.exists());
+        Assert.assertEquals(1, ranges.size());
+        Assert.assertTrue(ranges.get(0), ranges.get(0).matches("bytes=[1-9][0-9]*-" + (content.length - 1)));
+    }
+
+    @Test
+    public void testKilledStreamingDownloadResumesFromCheckpoint() throws Exception {
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+
+        try {
+            // the listener stands in for a process which is killed after the second megabyte,
+            // the buffer size does not divide the segment size so a checkpoint off the boundary would show
+            new ConcreteOneDownloadFile(file, api, destination)
+                    .setBufferSize(1000)
+                    .setSegmentSize(1024 * 1024)
+                    .setTransferListener(new TransferListener() {
+                        @Override
+                        public void onChunk(TransferProgress progress) {
+                            if (progress.getTransferred() >= 2 * 1024 * 1024) {
+                                throw new IllegalStateException("killed");
+                            }
+                        }
+                    })
+                    .startDownload();
+            Assert.fail("the download was killed");
+        } catch (IllegalStateException expected) {
+            Assert.assertTrue(new File(destination.getPath() + ".partial").isFile());
+        }
+
+        new ConcreteOneDownloadFile(file, api, destination).startDownload();
+
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+        Assert.assertEquals(Arrays.asList("full", "bytes=2097152-" + (content.length - 1)), ranges);
+    }
+
+    @Test
+    public void testResumeWithStaleMetadataFails() throws Exception {
+        ConcreteOneFile file = ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length));
+        breakStream.set(true);
+        try {
+            new ConcreteOneDownloadFile(file, api, destination).startDownload();
+            Assert.fail("the broken stream must fail the download");
+        } catch (IOException expected) {
+        }
+        currentETag.set("etag-new");
+
+        try {
+            new ConcreteOneDownloadFile(file, api, destination).setSegmentRetries(5).startDownload();
+            Assert.fail("the item changed since its metadata was fetched");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("changed"));
+        }
+        Assert.assertEquals(Collections.singletonList("changed"), ranges);
+    }
+
+    @Test
+    public void testChangedItemIsDownloadedAgain() throws Exception {
+        breakStream.set(true);
+        try {
+            new ConcreteOneDownloadFile(ConcreteOneFile.fromJSON(StandInServer.fileJson("file", "file.bin", content.length)),
+                    api, destination).startDownload();
+            Assert.fail("the broken stream must fail the download");
+        } catch (IOException expected) {
+        }
+
+        // same size, but the eTag of the new version differs
+        ConcreteOneFile changed = ConcreteOneFile.fromJSON(StandInServer.fileJson("changed", "file.bin", content.length));
+        new ConcreteOneDownloadFile(changed, api, destination).startDownload();
+
+        Assert.assertArrayEquals(content, Files.toByteArray(destination));
+        Assert.assertEquals(Collections.singletonList("full"), ranges);
+    }
+}
@@ -0,0 +1,162 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.io.CharStreams;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRequestTest {
+
+    private StandInServer server;
+    private ConcreteOneDriveSDK api;
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInServer();
+        api = server.connect();
+        // answers every request with its url in reverse order, DELETE requests fail
+        server.on("$batch", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = CharStreams.toString(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                JsonArray requests = new JsonParser().parse(body).getAsJsonObject().getAsJsonArray("requests");
+                batchSizes.add(requests.size());
+
+                JsonArray responses = new JsonArray();
+                for (int i = requests.size() - 1; i >= 0; i--) {
+                    JsonObject request = requests.get(i).getAsJsonObject();
+                    JsonObject response = new JsonObject();
+                    response.add("id", request.get("id"));
+                    JsonObject responseBody = new JsonObject();
+                    responseBody.add("url", request.get("url"));
+                    if (request.has("body")) {
+                        responseBody.add("echo", request.get("body"));
+                    }
+                    response.addProperty("status", "DELETE".equals(request.get("method").getAsString()) ? 404 : 200);
+                    JsonObject headers = new JsonObject();
+                    headers.addProperty("Content-Type", "application/json");
+                    response.add("headers", headers);
+                    response.add("body", responseBody);
+                    responses.add(response);
+                }
+                JsonObject reply = new JsonObject();
+                reply.add("responses", responses);
+                StandInServer.reply(exchange, 200, reply.toString());
+            }
+        });
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testChunkingAndOrder() throws IOException, OneDriveException {
+        BatchRequest batch = new BatchRequest();
+        for (int i = 0; i < 45; i++) {
+            batch.add(new PreparedRequest("drive/items/" + i, PreparedRequestMethod.GET));
+        }
+
+        List<OneResponse> responses = api.makeBatchRequest(batch);
+
+        Assert.assertEquals(3, server.getRequests().size());
+        Assert.assertEquals(20, (int) batchSizes.get(0));
+        Assert.assertEquals(20, (int) batchSizes.get(1));
+        Assert.assertEquals(5, (int) batchSizes.get(2));
+        Assert.assertEquals(45, responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            JsonObject body = new JsonParser().parse(responses.get(i).getBodyAsString()).getAsJsonObject();
+            Assert.assertEquals("/drive/items/" + i, body.get("url").getAsString());
+            Assert.assertTrue(responses.get(i).wasSuccess());
+        }
+    }
+
+    @Test
+    public void testMixedMethodsAndBodies() throws IOException, OneDriveException {
+        PreparedRequest patch = new PreparedRequest("drive/items/1", PreparedRequestMethod.PATCH);
+        patch.addHeader("Content-Type", "application/json");
+        patch.setBody("{\"name\":\"renamed\"}".getBytes(StandardCharsets.UTF_8));
+
+        BatchRequest batch = new BatchRequest()
+                .add(patch)
+                .add(new PreparedRequest(server.getBaseUrl() + "drive/items/2", PreparedRequestMethod.DELETE))
+                .setBatchSize(5);
+
+        List<OneResponse> responses = api.makeBatchRequest(batch);
+
+        JsonElement echo = new JsonParser().parse(responses.get(0).getBodyAsString()).getAsJsonObject().get("echo");
+        Assert.assertEquals("renamed", echo.getAsJsonObject().get("name").getAsString());
+        Assert.assertEquals("application/json", responses.get(0).getHeader("content-type"));
+        Assert.assertEquals(404, responses.get(1).getStatusCode());
+        Assert.assertFalse(responses.get(1).wasSuccess());
+    }
+
+    @Test
+    public void testPlainTextBodyIsKept() throws OneDriveException {
+        List<OneResponse> responses = BatchRequest.parseResponses("{\"responses\":[{\"id\":\"0\",\"status\":500,"
+                + "\"headers\":{\"Content-Type\":\"text/plain\"},\"body\":\"Internal error, try again!\"}]}", 1);
+
+        Assert.assertEquals(500, responses.get(0).getStatusCode());
+        Assert.assertEquals("Internal error, try again!", responses.get(0).getBodyAsString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStreamedBodyIsRejected() {
+        PreparedRequest upload = new PreparedRequest("drive/items/1/content", PreparedRequestMethod.PUT)
+                .setBody(RequestBody.create(MediaType.parse("application/octet-stream"), new byte[16]));
+        new BatchRequest().add(upload);
+    }
+
+    @Test
+    public void testBodyIsDecodedByContentType() throws OneDriveException {
+        List<OneResponse> responses = BatchRequest.parseResponses("{\"responses\":["
+                + "{\"id\":\"0\",\"status\":200,\"headers\":{\"Content-Type\":\"text/plain\"},\"body\":\"abcd\"},"
+                + "{\"id\":\"1\",\"status\":200,\"headers\":{\"Content-Type\":\"application/octet-stream\"},\"body\":\"YWJjZA==\"},"
+                + "{\"id\":\"2\",\"status\":200,\"body\":{\"id\":\"abcd\"}}]}", 3);
+
+        // "abcd" is valid base64 as well, but the content type says it is text
+        Assert.assertEquals("abcd", responses.get(0).getBodyAsString());
+        Assert.assertEquals("abcd", responses.get(1).getBodyAsString());
+        Assert.assertEquals("{\"id\":\"abcd\"}", responses.get(2).getBodyAsString());
+    }
+
+    @Test(expected = OneDriveException.class)
+    public void testMalformedBinaryBody() throws OneDriveException {
+        BatchRequest.parseResponses("{\"responses\":[{\"id\":\"0\",\"status\":200,"
+                + "\"headers\":{\"Content-Type\":\"application/octet-stream\"},\"body\":\"not base64!\"}]}", 1);
+    }
+
+    @Test
+    public void testMissingResponse() {
+        try {
+            BatchRequest.parseResponses("{\"responses\":[{\"id\":\"1\",\"status\":200}]}", 2);
+            Assert.fail();
+        } catch (OneDriveException e) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchSizeLimit() {
+        new BatchRequest().setBatchSize(BatchRequest.MAX_BATCH_SIZE + 1);
+    }
+}
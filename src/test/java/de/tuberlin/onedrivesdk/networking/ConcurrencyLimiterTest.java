@@ -0,0 +1,89 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testKeys() {
+        assertEquals("drive", ConcurrencyLimiter.keyOf("drive/items/abc/children"));
+        assertEquals("drives/42", ConcurrencyLimiter.keyOf("drives/42/items/abc"));
+        assertEquals("drives/42", ConcurrencyLimiter.keyOf("drives/42"));
+        assertEquals("upload.example.com", ConcurrencyLimiter.keyOf("https://upload.example.com/up/session?x=1"));
+    }
+
+    @Test
+    public void testLimitGrowsWhileUsed() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 10);
+        for (int i = 0; i < 50; i++) {
+            ConcurrencyLimiter.Permit first = limiter.acquire("drive");
+            ConcurrencyLimiter.Permit second = limiter.acquire("drive");
+            first.onSuccess(MILLI);
+            second.onSuccess(MILLI);
+        }
+        assertTrue(limiter.getLimit("drive") > 2);
+        assertTrue(limiter.getLimit("drive") <= 10);
+        assertEquals(0, limiter.getInFlight("drive"));
+    }
+
+    @Test
+    public void testIdleLimitDoesNotGrow() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("drive").onSuccess(MILLI);
+        }
+        assertEquals(8, limiter.getLimit("drive"));
+    }
+
+    @Test
+    public void testBurstOfThrottledResponsesHalvesOnce() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+        ConcurrencyLimiter.Permit[] permits = new ConcurrencyLimiter.Permit[4];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire("drive");
+        }
+        for (ConcurrencyLimiter.Permit permit : permits) {
+            permit.onThrottled();
+        }
+        assertEquals(4, limiter.getLimit("drive"));
+
+        limiter.acquire("drive").onThrottled();
+        assertEquals(2, limiter.getLimit("drive"));
+        assertEquals(8, limiter.getLimit("drives/other"));
+    }
+
+    @Test
+    public void testRisingLatencyShrinksLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 64);
+        limiter.acquire("drive").onSuccess(MILLI);
+        limiter.acquire("drive").onSuccess(10 * MILLI);
+        assertEquals(9, limiter.getLimit("drive"));
+    }
+
+    @Test
+    public void testRequestsAboveLimitWait() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+        ConcurrencyLimiter.Permit first = limiter.acquire("drive");
+        ListenableFuture<ConcurrencyLimiter.Permit> second = limiter.acquireAsync("drive");
+        ListenableFuture<ConcurrencyLimiter.Permit> third = limiter.acquireAsync("drive");
+        assertFalse(second.isDone());
+
+        second.cancel(false);
+        first.onSuccess(-1);
+        assertTrue(third.isDone());
+        assertEquals(1, limiter.getInFlight("drive"));
+
+        third.get().onDropped();
+        third.get().onDropped();
+        assertEquals(0, limiter.getInFlight("drive"));
+    }
+}
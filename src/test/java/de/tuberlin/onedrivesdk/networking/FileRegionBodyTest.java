@@ -0,0 +1,58 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FileRegionBodyTest {
+
+    private final byte[] content = new byte[3 * FileRegionBody.TRANSFER_BUFFER_SIZE + 123];
+    private File file;
+    private FileChannel channel;
+
+    @Before
+    public void createFile() throws IOException {
+        new Random(7).nextBytes(content);
+        file = File.createTempFile("TestOneSDKRegion", ".bin");
+        Files.write(file.toPath(), content);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    @After
+    public void removeFile() throws IOException {
+        channel.close();
+        file.delete();
+    }
+
+    @Test
+    public void testRegionCanBeWrittenRepeatedly() throws IOException {
+        int position = 1000;
+        int length = 2 * FileRegionBody.TRANSFER_BUFFER_SIZE + 7;
+        FileRegionBody body = new FileRegionBody(channel, position, length);
+        byte[] expected = Arrays.copyOfRange(content, position, position + length);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Buffer sink = new Buffer();
+            body.writeTo(sink);
+            Assert.assertArrayEquals(expected, sink.readByteArray());
+        }
+        Assert.assertEquals(length, body.contentLength());
+        Assert.assertEquals(0, channel.position());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testRegionBeyondEndOfFile() throws IOException {
+        new FileRegionBody(channel, content.length - 10, 20).writeTo(new Buffer());
+    }
+}
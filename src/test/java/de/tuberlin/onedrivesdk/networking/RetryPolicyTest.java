@@ -0,0 +1,50 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testClassification() {
+        RetryPolicy policy = new RetryPolicy();
+        assertTrue(policy.isRetryable("POST", 429));
+        assertTrue(policy.isRetryable("POST", 503));
+        assertFalse(policy.isRetryable("POST", 500));
+        assertTrue(policy.isRetryable("PUT", 500));
+        assertTrue(policy.isRetryable("GET", 504));
+        assertFalse(policy.isRetryable("GET", 404));
+        assertFalse(policy.isRetryable("PUT", 416));
+        assertTrue(policy.isRetryable("GET", new IOException("reset")));
+        assertFalse(policy.isRetryable("POST", new IOException("reset")));
+    }
+
+    @Test
+    public void testBackoffGrowsWithinJitterAndCap() {
+        RetryPolicy policy = new RetryPolicy().setBaseDelay(100, TimeUnit.MILLISECONDS).setMaxDelay(1, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++) {
+            long first = policy.delayMillis(0, null);
+            assertTrue(first >= 50 && first <= 100);
+            long third = policy.delayMillis(2, null);
+            assertTrue(third >= 200 && third <= 400);
+            long late = policy.delayMillis(40, null);
+            assertTrue(late >= 500 && late <= 1000);
+        }
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() {
+        RetryPolicy policy = new RetryPolicy().setMaxRetryAfter(1, TimeUnit.MINUTES);
+        assertEquals(7000, policy.delayMillis(3, "7"));
+        assertEquals(-1, policy.delayMillis(0, "120"));
+        assertEquals(2000, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:02 GMT", 1445412480000L));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null, 0));
+    }
+}
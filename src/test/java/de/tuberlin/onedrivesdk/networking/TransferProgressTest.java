@@ -0,0 +1,42 @@
+package de.tuberlin.onedrivesdk.networking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TransferProgressTest {
+
+    @Test
+    public void testChunksAreRecordedInPlace() {
+        final List<TransferProgress> events = new ArrayList<>();
+        final List<Double> smoothed = new ArrayList<>();
+        TransferProgress progress = new TransferProgress("file.bin", 3000, new TransferListener() {
+            @Override
+            public void onChunk(TransferProgress progress) {
+                events.add(progress);
+                smoothed.add(progress.getSmoothedThroughput());
+            }
+        });
+
+        progress.record(0, 1000, TimeUnit.SECONDS.toNanos(1));
+        progress.record(1000, 2000, TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(2, events.size());
+        assertSame(progress, events.get(0));
+        assertSame(progress, events.get(1));
+        assertEquals(1000, smoothed.get(0), 0.001);
+        assertEquals(0.3 * 2000 + 0.7 * 1000, smoothed.get(1), 0.001);
+        assertEquals(1000, progress.getPosition());
+        assertEquals(2000, progress.getBytes());
+        assertEquals(3000, progress.getTransferred());
+        assertEquals(3000, progress.getTotal());
+        assertEquals(2000, progress.getThroughput(), 0.001);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), progress.getRoundTripNanos());
+        assertEquals("file.bin", progress.getName());
+    }
+}
@@ -0,0 +1,65 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkSizePolicyTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void testFixedPolicyOnlyMeasures() {
+		ChunkSizePolicy policy = new ChunkSizePolicy(false);
+		policy.onSuccess(ChunkSizePolicy.UNIT * 30, SECOND / 100);
+		policy.onFailure();
+
+		assertEquals(320 * 1024 * 30, policy.getChunkSize());
+		assertEquals(ChunkSizePolicy.UNIT * 3000, policy.getThroughput(), 1);
+	}
+
+	@Test
+	public void testFastLinkGrowsAtMostTwofoldPerChunk() {
+		ChunkSizePolicy policy = new ChunkSizePolicy(true);
+		policy.onSuccess(policy.getChunkSize(), SECOND / 100);
+		assertEquals(60 * ChunkSizePolicy.UNIT, policy.getChunkSize());
+
+		for (int i = 0; i < 10; i++) {
+			policy.onSuccess(policy.getChunkSize(), SECOND / 100);
+			assertEquals(0, policy.getChunkSize() % ChunkSizePolicy.UNIT);
+		}
+		assertEquals(ChunkSizePolicy.MAX_UNITS * ChunkSizePolicy.UNIT, policy.getChunkSize());
+	}
+
+	@Test
+	public void testSlowLinkShrinksToThroughput() {
+		ChunkSizePolicy policy = new ChunkSizePolicy(true);
+		// 320 KiB per second, the target of 4 seconds asks for 4 units
+		for (int i = 0; i < 10; i++) {
+			policy.onSuccess(policy.getChunkSize(), policy.getChunkSize() * SECOND / ChunkSizePolicy.UNIT);
+		}
+		assertEquals(4 * ChunkSizePolicy.UNIT, policy.getChunkSize());
+	}
+
+	@Test
+	public void testFailuresHalveAndHoldTheSize() {
+		ChunkSizePolicy policy = new ChunkSizePolicy(true);
+		policy.onFailure();
+		assertEquals(15 * ChunkSizePolicy.UNIT, policy.getChunkSize());
+		policy.onFailure();
+		assertEquals(7 * ChunkSizePolicy.UNIT, policy.getChunkSize());
+
+		// fast chunks do not grow the size while the failure rate is high
+		policy.onSuccess(policy.getChunkSize(), SECOND / 100);
+		assertEquals(7 * ChunkSizePolicy.UNIT, policy.getChunkSize());
+
+		for (int i = 0; i < 20; i++) {
+			policy.onFailure();
+		}
+		assertEquals(ChunkSizePolicy.UNIT, policy.getChunkSize());
+		assertTrue(policy.getThroughput() > 0);
+	}
+}
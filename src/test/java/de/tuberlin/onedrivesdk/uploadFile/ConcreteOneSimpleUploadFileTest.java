@@ -0,0 +1,77 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.Files;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcreteOneSimpleUploadFileTest {
+
+	private StandInServer server;
+	private StandInUploadSession session;
+	private ConcreteOneDriveSDK api;
+	private ConcreteOneFolder folder;
+	private File fileToUpload;
+	private final byte[] content = new byte[2048];
+
+	@Before
+	public void startServer() throws Exception {
+		server = new StandInServer();
+		session = new StandInUploadSession(server);
+		api = server.connect();
+		folder = (ConcreteOneFolder) ConcreteOneFolder.fromJSON(StandInServer.folderJson("folder", "folder")).setApi(api);
+		fileToUpload = File.createTempFile("TestOneSDKFile", ".txt");
+		new Random(5).nextBytes(content);
+		Files.write(content, fileToUpload);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+		fileToUpload.delete();
+	}
+
+	@Test
+	public void testSmallFileIsUploadedWithOneRequest() throws Exception {
+		OneUploadFile upload = folder.uploadFile(fileToUpload);
+		OneFile uploaded = upload.startUpload();
+
+		assertTrue(upload instanceof ConcreteOneSimpleUploadFile);
+		assertEquals("uploaded", uploaded.getId());
+		assertArrayEquals(content, session.getContent());
+		assertEquals(Collections.singletonList("PUT /v1.0/drive/items/folder:/" + fileToUpload.getName() + ":/content"),
+				server.getRequests());
+		assertEquals(content.length, upload.uploadStatus());
+	}
+
+	@Test
+	public void testFileAboveThresholdUsesUploadSession() throws Exception {
+		api.setSimpleUploadThreshold(content.length);
+
+		OneUploadFile upload = folder.uploadFile(fileToUpload);
+		upload.startUpload();
+
+		assertTrue(upload instanceof ConcreteOneUploadFile);
+		assertArrayEquals(content, session.getContent());
+		assertEquals(Collections.singletonList("0-" + (content.length - 1)), session.getChunks());
+		assertEquals(2, server.getRequests().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingFile() throws Exception {
+		new ConcreteOneSimpleUploadFile(folder, new File(fileToUpload.getPath() + ".missing"), api);
+	}
+}
@@ -0,0 +1,129 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConcreteOneStreamUploadFileTest {
+
+	private static final int CHUNK_SIZE = 320 * 1024 * 30;
+
+	private StandInServer server;
+	private StandInUploadSession session;
+	private ConcreteOneFolder folder;
+	private byte[] content;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new StandInServer();
+		session = new StandInUploadSession(server);
+		ConcreteOneDriveSDK api = server.connect();
+		folder = (ConcreteOneFolder) ConcreteOneFolder.fromJSON(StandInServer.folderJson("folder", "folder")).setApi(api);
+		content = new byte[2 * CHUNK_SIZE + 12345];
+		new Random(16).nextBytes(content);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	public void testKnownLength() throws Exception {
+		OneUploadFile upload = folder.uploadStream("stream.bin", new TrickleInputStream(content), content.length);
+		OneFile uploaded = upload.startUpload();
+
+		assertEquals("uploaded", uploaded.getId());
+		assertArrayEquals(content, session.getContent());
+		assertEquals(Arrays.asList(
+				"bytes 0-" + (CHUNK_SIZE - 1) + "/" + content.length,
+				"bytes " + CHUNK_SIZE + "-" + (2 * CHUNK_SIZE - 1) + "/" + content.length,
+				"bytes " + 2 * CHUNK_SIZE + "-" + (content.length - 1) + "/" + content.length), session.getContentRanges());
+		assertNull(upload.getUploadFile());
+	}
+
+	@Test
+	public void testUnknownLengthSendsTotalWithLastChunk() throws Exception {
+		OneUploadFile upload = folder.uploadStream("stream.bin", new TrickleInputStream(content), -1);
+		upload.startUpload();
+
+		assertArrayEquals(content, session.getContent());
+		List<String> ranges = session.getContentRanges();
+		assertEquals(3, ranges.size());
+		// the ring holds two chunks, so the end of the stream is unknown while the first chunk is sent
+		assertEquals("bytes 0-" + (CHUNK_SIZE - 1) + "/*", ranges.get(0));
+		assertEquals("bytes " + 2 * CHUNK_SIZE + "-" + (content.length - 1) + "/" + content.length, ranges.get(2));
+		assertEquals(content.length, upload.fileSize());
+	}
+
+	@Test
+	public void testStreamEndingAtChunkBoundary() throws Exception {
+		content = Arrays.copyOf(content, 2 * CHUNK_SIZE);
+		folder.uploadStream("stream.bin", new TrickleInputStream(content), -1).startUpload();
+
+		assertArrayEquals(content, session.getContent());
+		assertEquals("bytes " + CHUNK_SIZE + "-" + (2 * CHUNK_SIZE - 1) + "/" + content.length, session.getContentRanges().get(1));
+	}
+
+	@Test
+	public void testRejectedPartIsSentFromRing() throws Exception {
+		session.acceptOnlyPartOfNextChunk(1000);
+		folder.uploadStream("stream.bin", new TrickleInputStream(content), content.length).startUpload();
+
+		assertArrayEquals(content, session.getContent());
+		assertEquals(Arrays.asList("0-" + (CHUNK_SIZE - 1), "1000-" + (CHUNK_SIZE + 999),
+				(CHUNK_SIZE + 1000) + "-" + (2 * CHUNK_SIZE + 999), (2 * CHUNK_SIZE + 1000) + "-" + (content.length - 1)),
+				session.getChunks());
+	}
+
+	@Test
+	public void testShortStreamIsSentWithOneRequest() throws Exception {
+		content = Arrays.copyOf(content, 5000);
+		folder.uploadStream("stream.bin", new ByteArrayInputStream(content), -1).startUpload();
+
+		assertArrayEquals(content, session.getContent());
+		assertEquals(Collections.singletonList("simple"), session.getChunks());
+	}
+
+	@Test(expected = IOException.class)
+	public void testStreamShorterThanDeclared() throws Exception {
+		folder.uploadStream("stream.bin", new TrickleInputStream(content), content.length + 1).startUpload();
+	}
+
+	/**
+	 * Returns at most a few KiB per read, like a producer generating data on the fly.
+	 */
+	private static class TrickleInputStream extends InputStream {
+		private final ByteArrayInputStream content;
+
+		private TrickleInputStream(byte[] content) {
+			this.content = new ByteArrayInputStream(content);
+		}
+
+		@Override
+		public int read() {
+			return content.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return content.read(b, off, Math.min(len, 7000));
+		}
+	}
+}
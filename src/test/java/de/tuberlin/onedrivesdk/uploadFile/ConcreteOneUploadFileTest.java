@@ -1,9 +1,14 @@
 package de.tuberlin.onedrivesdk.uploadFile;
 
+import com.google.common.io.Files;
 import de.tuberlin.onedrivesdk.OneDriveException;
 import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.file.OneFile;
 import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
 import de.tuberlin.onedrivesdk.networking.OneDriveAuthenticationException;
+import de.tuberlin.onedrivesdk.networking.TransferListener;
+import de.tuberlin.onedrivesdk.networking.TransferProgress;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,12 +19,32 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class ConcreteOneUploadFileTest {
 
+	private static final int CHUNK_SIZE = 320 * 1024 * 30;
+
 	public File fileToUploadPath;
 
 	ConcreteOneDriveSDK mockApi;
@@ -39,6 +64,16 @@ public class ConcreteOneUploadFileTest {
 
 	}
 
+	@Test
+	public void testExpirationDate() throws Exception {
+		UploadSession upSession = getEmptyUploadSession();
+		assertFalse(upSession.isExpired());
+
+		getUnaccessableField("expirationDateTime", UploadSession.class).set(upSession, "2015-01-29T09:21:55.523Z");
+		assertEquals(1422523315000L, upSession.getExpirationDate());
+		assertTrue(upSession.isExpired());
+	}
+
 	@Test
 	public void testCreateUploadSession() throws InstantiationException,
 			IllegalAccessException, IllegalArgumentException,
@@ -65,6 +100,278 @@ public class ConcreteOneUploadFileTest {
 
 	}
 
+	@Test
+	public void testPipelinedUploadFollowsExpectedRanges() throws Exception {
+		StandInServer server = new StandInServer();
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE * 2 + CHUNK_SIZE / 2);
+			// the server keeps only the first 1000 bytes of the first chunk, the prefetched second chunk must be dropped
+			session.acceptOnlyPartOfNextChunk(1000);
+
+			OneFile uploaded = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect())
+					.setPipelined(true)
+					.startUpload();
+
+			assertEquals("uploaded", uploaded.getId());
+			assertArrayEquals(content, session.getContent());
+			assertEquals(Arrays.asList("0-" + (CHUNK_SIZE - 1), "1000-" + (CHUNK_SIZE + 999),
+					(CHUNK_SIZE + 1000) + "-" + (2 * CHUNK_SIZE + 999), (2 * CHUNK_SIZE + 1000) + "-" + (content.length - 1)),
+					session.getChunks());
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testUploadRecoversFromFailedChunk() throws Exception {
+		StandInServer server = new StandInServer();
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE + 12345);
+			session.failNextChunks(1);
+
+			new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect())
+					.setPipelined(true)
+					.startUpload();
+
+			assertArrayEquals(content, session.getContent());
+			assertEquals(Arrays.asList("0-" + (CHUNK_SIZE - 1), "0-" + (CHUNK_SIZE - 1), CHUNK_SIZE + "-" + (content.length - 1)),
+					session.getChunks());
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testAdaptivePipelinedUploadKeepsUnitAlignedChunks() throws Exception {
+		StandInServer server = new StandInServer();
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE * 4 + 4711);
+
+			OneUploadFile upload = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect())
+					.setPipelined(true)
+					.setAdaptiveChunkSize(true);
+			upload.startUpload();
+
+			assertArrayEquals(content, session.getContent());
+			List<String> chunks = session.getChunks();
+			for (String chunk : chunks.subList(0, chunks.size() - 1)) {
+				String[] range = chunk.split("-");
+				assertEquals(0, (Long.parseLong(range[1]) + 1 - Long.parseLong(range[0])) % ChunkSizePolicy.UNIT);
+			}
+			assertTrue(upload.getThroughput() > 0);
+			assertTrue(upload.getChunkSize() > CHUNK_SIZE);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testNewProcessReattachesToJournaledSession() throws Exception {
+		StandInServer server = new StandInServer();
+		File journalDirectory = java.nio.file.Files.createTempDirectory("TestOneSDKJournal").toFile();
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE * 2 + 99);
+			session.becomeUnavailableAfter(1);
+
+			ConcreteOneDriveSDK firstProcess = server.connect();
+			firstProcess.setUploadJournalDirectory(journalDirectory);
+			try {
+				new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, firstProcess).startUpload();
+				fail("the unavailable session must abort the upload");
+			} catch (OneDriveException expected) {
+				assertEquals(1, journalDirectory.list().length);
+			}
+
+			session.becomeUnavailableAfter(-1);
+			ConcreteOneDriveSDK secondProcess = server.connect();
+			secondProcess.setUploadJournalDirectory(journalDirectory);
+			OneUploadFile upload = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, secondProcess);
+			assertEquals(CHUNK_SIZE, upload.uploadStatus());
+			upload.startUpload();
+
+			assertArrayEquals(content, session.getContent());
+			assertEquals(1, Collections.frequency(server.getRequests(),
+					"POST /v1.0/drive/items/aiusgtffgso8745whfirstgu:/" + fileToUploadPath.getName() + ":/upload.createSession"));
+			// the rejected attempt of the first process is not recorded by the unavailable session
+			assertEquals(Arrays.asList("0-" + (CHUNK_SIZE - 1), CHUNK_SIZE + "-" + (2 * CHUNK_SIZE - 1),
+					2 * CHUNK_SIZE + "-" + (content.length - 1)),
+					session.getChunks());
+			assertEquals(0, journalDirectory.list().length);
+		} finally {
+			server.stop();
+			for (File record : journalDirectory.listFiles()) {
+				record.delete();
+			}
+			journalDirectory.delete();
+		}
+	}
+
+	@Test
+	public void testReattachUsesExpirationExtendedByAcceptedChunks() throws Exception {
+		StandInServer server = new StandInServer();
+		File journalDirectory = java.nio.file.Files.createTempDirectory("TestOneSDKJournal").toFile();
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE * 2 + 99);
+			// the expiration at creation counts as expired, the one extended by the first chunk does not
+			session.expire(utc(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30)),
+					utc(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+			session.becomeUnavailableAfter(1);
+
+			ConcreteOneDriveSDK firstProcess = server.connect();
+			firstProcess.setUploadJournalDirectory(journalDirectory);
+			try {
+				new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, firstProcess).startUpload();
+				fail("the unavailable session must abort the upload");
+			} catch (OneDriveException expected) {
+			}
+
+			session.becomeUnavailableAfter(-1);
+			ConcreteOneDriveSDK secondProcess = server.connect();
+			secondProcess.setUploadJournalDirectory(journalDirectory);
+			OneUploadFile upload = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, secondProcess);
+			assertEquals(CHUNK_SIZE, upload.uploadStatus());
+			upload.startUpload();
+
+			assertArrayEquals(content, session.getContent());
+			assertEquals(1, Collections.frequency(server.getRequests(),
+					"POST /v1.0/drive/items/aiusgtffgso8745whfirstgu:/" + fileToUploadPath.getName() + ":/upload.createSession"));
+		} finally {
+			server.stop();
+			for (File record : journalDirectory.listFiles()) {
+				record.delete();
+			}
+			journalDirectory.delete();
+		}
+	}
+
+	private static String utc(long millis) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format.format(new Date(millis));
+	}
+
+	@Test
+	public void testUploadSendsOnlyMissingRanges() throws Exception {
+		for (boolean pipelined : new boolean[]{false, true}) {
+			StandInServer server = new StandInServer();
+			try {
+				StandInUploadSession session = new StandInUploadSession(server);
+				byte[] content = writeTestFile(CHUNK_SIZE * 2 + 99);
+				// the server reports two gaps in the first chunk besides the rest of the file
+				session.loseAfterNextChunk(1000, 1999, 5000, 5999);
+
+				new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect())
+						.setPipelined(pipelined)
+						.startUpload();
+
+				assertArrayEquals(content, session.getContent());
+				assertEquals(Arrays.asList("0-" + (CHUNK_SIZE - 1), "1000-1999", "5000-5999",
+						CHUNK_SIZE + "-" + (2 * CHUNK_SIZE - 1), 2 * CHUNK_SIZE + "-" + (content.length - 1)),
+						session.getChunks());
+			} finally {
+				server.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testListenerReceivesAcceptedChunks() throws Exception {
+		StandInServer server = new StandInServer();
+		try {
+			new StandInUploadSession(server).failNextChunks(1);
+			byte[] content = writeTestFile(CHUNK_SIZE * 2 + 500);
+			final List<String> chunks = new ArrayList<>();
+			final long[] transferred = {0};
+
+			new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect())
+					.setTransferListener(new TransferListener() {
+						@Override
+						public void onChunk(TransferProgress progress) {
+							chunks.add(progress.getPosition() + "+" + progress.getBytes());
+							transferred[0] = progress.getTransferred();
+							assertEquals(progress.getBytes() / (progress.getRoundTripNanos() / 1e9), progress.getThroughput(), 1);
+						}
+					})
+					.startUpload();
+
+			// the rejected first attempt is not reported
+			assertEquals(Arrays.asList("0+" + CHUNK_SIZE, CHUNK_SIZE + "+" + CHUNK_SIZE, 2 * CHUNK_SIZE + "+500"), chunks);
+			assertEquals(content.length, transferred[0]);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testPauseAndResumeFromOtherThreads() throws Exception {
+		StandInServer server = new StandInServer();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			StandInUploadSession session = new StandInUploadSession(server);
+			byte[] content = writeTestFile(CHUNK_SIZE + 99);
+			final OneUploadFile upload = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect());
+
+			upload.pauseUpload();
+			Future<OneFile> result = executor.submit(upload);
+			Thread.sleep(200);
+			assertEquals(UploadState.PAUSED, upload.getState());
+			assertFalse(result.isDone());
+			assertTrue(session.getChunks().isEmpty());
+
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					upload.resumeUpload();
+				}
+			}).get();
+
+			assertEquals("uploaded", result.get(10, TimeUnit.SECONDS).getId());
+			assertEquals(UploadState.FINISHED, upload.getState());
+			assertArrayEquals(content, session.getContent());
+		} finally {
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testCancelAbortsRunningChunk() throws Exception {
+		StandInServer server = new StandInServer();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		StandInUploadSession session = new StandInUploadSession(server);
+		try {
+			writeTestFile(CHUNK_SIZE * 2);
+			CountDownLatch arrived = new CountDownLatch(1);
+			session.stallNextChunk(arrived);
+			OneUploadFile upload = new ConcreteOneUploadFile(makeMockFolder(), fileToUploadPath, server.connect());
+
+			Future<OneFile> result = executor.submit(upload);
+			assertTrue(arrived.await(10, TimeUnit.SECONDS));
+			upload.cancelUpload();
+
+			// the stalled chunk would not be answered for 10 seconds
+			assertNull(result.get(2, TimeUnit.SECONDS));
+			assertEquals(UploadState.CANCELED, upload.getState());
+			assertTrue(server.getRequests().contains("DELETE /v1.0/upload/session"));
+		} finally {
+			session.release();
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	private byte[] writeTestFile(int size) throws IOException {
+		byte[] content = new byte[size];
+		new Random(3).nextBytes(content);
+		Files.write(content, fileToUploadPath);
+		return content;
+	}
+
 	public static ConcreteOneFolder makeMockFolder() {
 		ConcreteOneFolder folder = mock(ConcreteOneFolder.class);
 		when(folder.getId()).thenReturn("aiusgtffgso8745whfirstgu");
@@ -100,6 +407,7 @@ public class ConcreteOneUploadFileTest {
 	
 	private static UploadSession getEmptyUploadSession() throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
 		// get constructor that takes a String as argument
+				@SuppressWarnings("unchecked")
 				Constructor<UploadSession> constructor = (Constructor<UploadSession>) UploadSession.class
 						.getDeclaredConstructors()[0];
 				constructor.setAccessible(true);
@@ -0,0 +1,123 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ContentHashTest {
+
+	private static final String SHA1 = "2AAE6C35C94FCFB415DBE95F408B9CE91EE846ED";
+	private static final String CRC32 = "85114A0D";
+
+	private StandInServer server;
+	private ConcreteOneDriveSDK api;
+	private ConcreteOneFolder folder;
+	private File fileToUpload;
+	private volatile String remoteJson;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new StandInServer();
+		server.on("drive/items/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				if ("PUT".equals(exchange.getRequestMethod())) {
+					byte[] content = ByteStreams.toByteArray(exchange.getRequestBody());
+					StandInServer.reply(exchange, 201, StandInServer.fileJson("uploaded", "hello.txt", content.length));
+				} else if (remoteJson == null) {
+					StandInServer.reply(exchange, 404, "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"missing\"}}");
+				} else {
+					StandInServer.reply(exchange, 200, remoteJson);
+				}
+			}
+		});
+		api = server.connect();
+		api.setSkipUnchangedUploads(true);
+		folder = (ConcreteOneFolder) ConcreteOneFolder.fromJSON(StandInServer.folderJson("folder", "folder")).setApi(api);
+		fileToUpload = File.createTempFile("TestOneSDKFile", ".txt");
+		Files.write("hello world".getBytes(StandardCharsets.US_ASCII), fileToUpload);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+		fileToUpload.delete();
+	}
+
+	@Test
+	public void testHashesInApiFormat() throws Exception {
+		ContentHash hash = ContentHash.of(fileToUpload);
+		assertEquals(SHA1, hash.getSHA1Hash());
+		assertEquals(CRC32, hash.getCRC32Hash());
+	}
+
+	@Test
+	public void testUnchangedFileIsSkipped() throws Exception {
+		remoteJson = remote(11, SHA1.toLowerCase(), null);
+
+		OneUploadFile upload = folder.uploadFile(fileToUpload);
+
+		assertTrue(upload instanceof ConcreteOneUnchangedUploadFile);
+		assertEquals("existing", upload.startUpload().getId());
+		assertEquals(Collections.singletonList("GET /v1.0/drive/items/folder:/" + fileToUpload.getName()), server.getRequests());
+	}
+
+	@Test
+	public void testCrc32IsUsedWithoutSha1() throws Exception {
+		remoteJson = remote(11, null, CRC32);
+		assertTrue(folder.uploadFile(fileToUpload) instanceof ConcreteOneUnchangedUploadFile);
+	}
+
+	@Test
+	public void testChangedFileIsUploaded() throws Exception {
+		remoteJson = remote(11, "0000000000000000000000000000000000000000", CRC32);
+
+		OneUploadFile upload = folder.uploadFile(fileToUpload);
+
+		assertTrue(upload instanceof ConcreteOneSimpleUploadFile);
+		assertEquals("uploaded", upload.startUpload().getId());
+	}
+
+	@Test
+	public void testMissingFileIsUploaded() throws Exception {
+		OneUploadFile upload = folder.uploadFile(fileToUpload);
+		upload.startUpload();
+
+		assertEquals(Arrays.asList("GET /v1.0/drive/items/folder:/" + fileToUpload.getName(),
+				"PUT /v1.0/drive/items/folder:/" + fileToUpload.getName() + ":/content"), server.getRequests());
+	}
+
+	@Test
+	public void testDifferentSizeIsNotHashed() throws Exception {
+		remoteJson = remote(12, SHA1, CRC32);
+		assertTrue(folder.uploadFile(fileToUpload) instanceof ConcreteOneSimpleUploadFile);
+	}
+
+	private static String remote(long size, String sha1, String crc32) {
+		StringBuilder hashes = new StringBuilder();
+		if (sha1 != null) {
+			hashes.append("\"sha1Hash\":\"").append(sha1).append('"');
+		}
+		if (crc32 != null) {
+			hashes.append(hashes.length() > 0 ? "," : "").append("\"crc32Hash\":\"").append(crc32).append('"');
+		}
+		return String.format("{\"id\":\"existing\",\"name\":\"hello.txt\",\"size\":%d,\"file\":{\"hashes\":{%s},\"mimeType\":\"text/plain\"}}",
+				size, hashes);
+	}
+}
@@ -0,0 +1,140 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.OneDriveException;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import de.tuberlin.onedrivesdk.folder.OneFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class DirectoryUploadTest {
+
+	private static final Pattern CHILDREN = Pattern.compile(".*/drive/items/([^/]+)/children");
+	private static final Pattern CONTENT = Pattern.compile(".*/drive/items/([^/:]+):/(.+):/content");
+	private static final Pattern NAME = Pattern.compile("\"name\": \"([^\"]*)\"");
+
+	private StandInServer server;
+	private ConcreteOneFolder folder;
+	private Path tree;
+	/**
+	 * remote path of every created item, folders map to null, files to their size
+	 */
+	private final Map<String, Integer> remote = new ConcurrentHashMap<>();
+	private final Map<String, String> paths = new ConcurrentHashMap<>();
+	private final AtomicInteger ids = new AtomicInteger();
+	private volatile String failFolder;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new StandInServer();
+		paths.put("root", "");
+		server.on("drive/items/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+				Matcher children = CHILDREN.matcher(path);
+				Matcher content = CONTENT.matcher(path);
+				if (children.matches()) {
+					Matcher name = NAME.matcher(new String(body, StandardCharsets.UTF_8));
+					name.find();
+					if (name.group(1).equals(failFolder)) {
+						StandInServer.reply(exchange, 500, "{\"error\":{\"code\":\"generalException\",\"message\":\"no\"}}");
+						return;
+					}
+					String id = "f" + ids.incrementAndGet();
+					String remotePath = paths.get(children.group(1)) + "/" + name.group(1);
+					paths.put(id, remotePath);
+					remote.put(remotePath, -1);
+					StandInServer.reply(exchange, 201, StandInServer.folderJson(id, name.group(1)));
+				} else if (content.matches()) {
+					remote.put(paths.get(content.group(1)) + "/" + content.group(2), body.length);
+					StandInServer.reply(exchange, 201, StandInServer.fileJson("file" + ids.incrementAndGet(), content.group(2), body.length));
+				} else {
+					StandInServer.reply(exchange, 404, "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"missing\"}}");
+				}
+			}
+		});
+		ConcreteOneDriveSDK api = server.connect();
+		folder = (ConcreteOneFolder) ConcreteOneFolder.fromJSON(StandInServer.folderJson("root", "root")).setApi(api);
+
+		tree = Files.createTempDirectory("TestOneSDKTree");
+		for (String directory : new String[]{"a", "a/b", "a/b/c", "d", "e"}) {
+			Files.createDirectories(tree.resolve(directory));
+			for (int i = 0; i < 5; i++) {
+				Files.write(tree.resolve(directory).resolve("file" + i), new byte[i * 100]);
+			}
+		}
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		server.stop();
+		delete(tree.toFile());
+	}
+
+	@Test
+	public void testTreeIsRecreated() throws Exception {
+		DirectoryUpload upload = new DirectoryUpload(folder, tree).setFolderWorkers(3);
+		OneFolder created = upload.call();
+
+		String base = "/" + tree.getFileName();
+		Map<String, Integer> expected = new TreeMap<>();
+		for (String directory : new String[]{"", "/a", "/a/b", "/a/b/c", "/d", "/e"}) {
+			expected.put(base + directory, -1);
+			if (!directory.isEmpty()) {
+				for (int i = 0; i < 5; i++) {
+					expected.put(base + directory + "/file" + i, i * 100);
+				}
+			}
+		}
+		assertEquals(expected, new TreeMap<>(remote));
+		assertEquals(25, upload.getUploadedFiles());
+		assertEquals(tree.getFileName().toString(), created.getName());
+		assertNotNull(upload.getRemoteFolder(tree.resolve("a/b/c")));
+	}
+
+	@Test
+	public void testSharedTransferManager() throws Exception {
+		try (TransferManager transfers = new TransferManager(2)) {
+			new DirectoryUpload(folder, tree).setTransferManager(transfers, "drive").call();
+			assertEquals(25 * 100 * 2, transfers.getTransferredBytes());
+		}
+	}
+
+	@Test(expected = OneDriveException.class)
+	public void testFailedFolderStopsUpload() throws Exception {
+		failFolder = "b";
+		new DirectoryUpload(folder, tree).call();
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,66 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelCrc32Test {
+
+	private File file;
+
+	@Before
+	public void createFile() throws Exception {
+		file = File.createTempFile("TestOneSDKFile", ".bin");
+	}
+
+	@After
+	public void removeFile() {
+		file.delete();
+	}
+
+	@Test
+	public void testCombine() {
+		long hello = crc("hello ".getBytes(StandardCharsets.US_ASCII), 0, 6);
+		long world = crc("world".getBytes(StandardCharsets.US_ASCII), 0, 5);
+		assertEquals(crc("hello world".getBytes(StandardCharsets.US_ASCII), 0, 11), ParallelCrc32.combine(hello, world, 5));
+		assertEquals(hello, ParallelCrc32.combine(hello, new CRC32().getValue(), 0));
+	}
+
+	@Test
+	public void testSegmentBoundaries() throws Exception {
+		int segment = (int) ParallelCrc32.SEGMENT_SIZE;
+		byte[] content = new byte[3 * segment + 12345];
+		new Random(18).nextBytes(content);
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			for (int length : new int[]{0, 1, segment - 1, segment, segment + 1, 2 * segment, content.length}) {
+				Files.write(Arrays.copyOf(content, length), file);
+				assertEquals("length " + length, crc(content, 0, length), ParallelCrc32.checksum(file, pool));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testApiFormat() throws Exception {
+		Files.write("hello world".getBytes(StandardCharsets.US_ASCII), file);
+		assertEquals("85114A0D", ParallelCrc32.toApiHex(ParallelCrc32.checksum(file)));
+	}
+
+	private static long crc(byte[] content, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(content, offset, length);
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,51 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeSetTest {
+
+	@Test
+	public void testParseClosedAndOpenRanges() {
+		RangeSet ranges = RangeSet.parse(new String[]{"100-199", "500-599", "1000-"});
+
+		assertEquals(3, ranges.size());
+		assertEquals(100, ranges.first());
+		assertEquals(199, ranges.endOfRange(100));
+		assertEquals(599, ranges.endOfRange(550));
+		assertEquals(Long.MAX_VALUE, ranges.endOfRange(5000));
+		assertEquals(-1, ranges.endOfRange(200));
+	}
+
+	@Test
+	public void testNextAt() {
+		RangeSet ranges = RangeSet.parse(new String[]{"100-199", "500-599"});
+
+		assertEquals(100, ranges.nextAt(0));
+		assertEquals(150, ranges.nextAt(150));
+		assertEquals(500, ranges.nextAt(200));
+		assertEquals(-1, ranges.nextAt(600));
+	}
+
+	@Test
+	public void testCountWithinFile() {
+		RangeSet ranges = RangeSet.parse(new String[]{"0-9", "20-"});
+
+		assertEquals(10 + 80, ranges.count(100));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertTrue(RangeSet.parse(null).isEmpty());
+		assertTrue(RangeSet.parse(new String[0]).isEmpty());
+		assertEquals(0, RangeSet.EMPTY.first());
+		assertEquals(-1, RangeSet.EMPTY.nextAt(0));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testMalformedRange() {
+		RangeSet.parse(new String[]{"abc-"});
+	}
+}
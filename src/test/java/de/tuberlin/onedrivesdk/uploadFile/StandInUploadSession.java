@@ -0,0 +1,252 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Upload session of the stand-in server, registered below "upload/" of a StandInServer.
+ * Every received chunk is recorded as "first-last", the content is assembled in memory.
+ * The session rejects chunks which overlap bytes it already has and answers like the OneDrive API:
+ * 202 with all nextExpectedRanges but without uploadUrl, 201 with the item once the last byte arrived.
+ * A chunk may leave the total open ("bytes 0-99/*") until the last chunk.
+ * A simple upload (PUT .../content) is recorded as "simple".
+ */
+class StandInUploadSession implements HttpHandler {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final StandInServer server;
+    private final List<String> chunks = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> contentRanges = Collections.synchronizedList(new ArrayList<String>());
+    private byte[] content = new byte[0];
+    private final BitSet received = new BitSet();
+    private long total;
+    private long[] lose;
+    private int failNextChunks;
+    private long acceptOnly = -1;
+    private int availableChunks = -1;
+    private String createdExpiration;
+    private String extendedExpiration;
+    private volatile CountDownLatch stall;
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    StandInUploadSession(StandInServer server) {
+        this.server = server;
+        server.on("drive/items/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("PUT".equals(exchange.getRequestMethod())) {
+                    simpleUpload(exchange);
+                    return;
+                }
+                StandInServer.reply(exchange, 200, String.format("{\"uploadUrl\":\"%supload/session\",%s\"nextExpectedRanges\":[\"0-\"]}",
+                        StandInUploadSession.this.server.getBaseUrl(), expirationJson(createdExpiration)));
+            }
+        });
+        server.on("upload/", this);
+    }
+
+    /**
+     * The next chunks are rejected with a server error.
+     */
+    synchronized StandInUploadSession failNextChunks(int count) {
+        this.failNextChunks = count;
+        return this;
+    }
+
+    /**
+     * Of the next chunk only the given number of bytes are stored, the session asks for the rest again.
+     */
+    synchronized StandInUploadSession acceptOnlyPartOfNextChunk(long bytes) {
+        this.acceptOnly = bytes;
+        return this;
+    }
+
+    /**
+     * After the given number of accepted chunks the session answers every request with 503, until it is reset to -1.
+     */
+    synchronized StandInUploadSession becomeUnavailableAfter(int chunks) {
+        this.availableChunks = chunks;
+        return this;
+    }
+
+    /**
+     * The session reports the first expiration when it is created and the second one once a chunk was accepted,
+     * like OneDrive which extends a session with every fragment.
+     *
+     * @param created  expirationDateTime of the new session
+     * @param extended expirationDateTime after the first accepted chunk
+     */
+    synchronized StandInUploadSession expire(String created, String extended) {
+        this.createdExpiration = created;
+        this.extendedExpiration = extended;
+        return this;
+    }
+
+    /**
+     * After the next accepted chunk the session drops the given ranges again and reports them as missing.
+     *
+     * @param bounds pairs of first and last byte
+     */
+    synchronized StandInUploadSession loseAfterNextChunk(long... bounds) {
+        this.lose = bounds;
+        return this;
+    }
+
+    /**
+     * The next chunk is neither read nor answered until release() is called, other requests are still served.
+     *
+     * @param arrived counted down once the chunk request arrived
+     */
+    StandInUploadSession stallNextChunk(CountDownLatch arrived) {
+        this.stall = arrived;
+        return this;
+    }
+
+    void release() {
+        released.countDown();
+    }
+
+    List<String> getChunks() {
+        synchronized (chunks) {
+            return new ArrayList<>(chunks);
+        }
+    }
+
+    /**
+     * @return Content-Range header of every received chunk
+     */
+    List<String> getContentRanges() {
+        synchronized (contentRanges) {
+            return new ArrayList<>(contentRanges);
+        }
+    }
+
+    synchronized byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        CountDownLatch arrived = stall;
+        if (arrived != null && "PUT".equals(exchange.getRequestMethod())) {
+            stall = null;
+            arrived.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        process(exchange);
+    }
+
+    private synchronized void process(HttpExchange exchange) throws IOException {
+        if (availableChunks == 0) {
+            ByteStreams.toByteArray(exchange.getRequestBody());
+            StandInServer.reply(exchange, 503, "{\"error\":{\"code\":\"serviceNotAvailable\",\"message\":\"down\"}}");
+            return;
+        }
+        if ("GET".equals(exchange.getRequestMethod())) {
+            StandInServer.reply(exchange, 200, status());
+            return;
+        }
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            StandInServer.reply(exchange, 204, (String) null);
+            return;
+        }
+
+        byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+        contentRanges.add(exchange.getRequestHeaders().getFirst("Content-Range"));
+        Matcher range = CONTENT_RANGE.matcher(exchange.getRequestHeaders().getFirst("Content-Range"));
+        if (!range.matches()) {
+            StandInServer.reply(exchange, 400, "{\"error\":{\"code\":\"invalidRange\",\"message\":\"bad range\"}}");
+            return;
+        }
+        long first = Long.parseLong(range.group(1));
+        long last = Long.parseLong(range.group(2));
+        long total = "*".equals(range.group(3)) ? 0 : Long.parseLong(range.group(3));
+        chunks.add(first + "-" + last);
+
+        if (failNextChunks > 0) {
+            failNextChunks--;
+            StandInServer.reply(exchange, 500, "{\"error\":{\"code\":\"generalException\",\"message\":\"try again\"}}");
+            return;
+        }
+        int overlap = received.nextSetBit((int) first);
+        if ((overlap != -1 && overlap <= last) || body.length != last - first + 1) {
+            StandInServer.reply(exchange, 416, "{\"error\":{\"code\":\"invalidRange\",\"message\":\"unexpected range\"}}");
+            return;
+        }
+
+        int accepted = acceptOnly >= 0 ? (int) Math.min(acceptOnly, body.length) : body.length;
+        acceptOnly = -1;
+        if (total != 0) {
+            this.total = total;
+        }
+        if (content.length < Math.max(total, last + 1)) {
+            content = Arrays.copyOf(content, (int) Math.max(total, last + 1));
+        }
+        System.arraycopy(body, 0, content, (int) first, accepted);
+        received.set((int) first, (int) first + accepted);
+        if (lose != null) {
+            for (int i = 0; i < lose.length; i += 2) {
+                received.clear((int) lose[i], (int) lose[i + 1] + 1);
+                Arrays.fill(content, (int) lose[i], (int) lose[i + 1] + 1, (byte) 0);
+            }
+            lose = null;
+        }
+        if (availableChunks > 0) {
+            availableChunks--;
+        }
+
+        if (this.total != 0 && received.cardinality() == this.total) {
+            StandInServer.reply(exchange, 201, StandInServer.fileJson("uploaded", "uploaded.bin", total));
+        } else {
+            StandInServer.reply(exchange, 202, status());
+        }
+    }
+
+    private synchronized void simpleUpload(HttpExchange exchange) throws IOException {
+        content = ByteStreams.toByteArray(exchange.getRequestBody());
+        chunks.add("simple");
+        StandInServer.reply(exchange, 201, StandInServer.fileJson("uploaded", "uploaded.bin", content.length));
+    }
+
+    private String status() {
+        StringBuilder ranges = new StringBuilder();
+        int missing = received.nextClearBit(0);
+        while (total == 0 || missing < total) {
+            if (ranges.length() > 0) {
+                ranges.append(',');
+            }
+            int present = received.nextSetBit(missing);
+            if (present == -1) {
+                ranges.append('"').append(missing).append("-\"");
+                break;
+            }
+            ranges.append('"').append(missing).append('-').append(present - 1).append('"');
+            missing = received.nextClearBit(present);
+        }
+        return String.format("{%s\"nextExpectedRanges\":[%s]}",
+                expirationJson(received.isEmpty() ? createdExpiration : extendedExpiration), ranges);
+    }
+
+    private synchronized String expirationJson(String expiration) {
+        return expiration == null ? "" : String.format("\"expirationDateTime\":\"%s\",", expiration);
+    }
+}
@@ -0,0 +1,129 @@
+package de.tuberlin.onedrivesdk.uploadFile;
+
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import de.tuberlin.onedrivesdk.common.ConcreteOneDriveSDK;
+import de.tuberlin.onedrivesdk.common.StandInServer;
+import de.tuberlin.onedrivesdk.file.OneFile;
+import de.tuberlin.onedrivesdk.folder.ConcreteOneFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransferManagerTest {
+
+	private StandInServer server;
+	private ConcreteOneDriveSDK api;
+	private ConcreteOneFolder folder;
+	private final List<File> files = new ArrayList<>();
+
+	@Before
+	public void startServer() throws Exception {
+		server = new StandInServer();
+		new StandInUploadSession(server);
+		api = server.connect();
+		folder = (ConcreteOneFolder) ConcreteOneFolder.fromJSON(StandInServer.folderJson("folder", "folder")).setApi(api);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPerDriveLimit() throws Exception {
+		final AtomicInteger[] running = {new AtomicInteger(), new AtomicInteger()};
+		final AtomicInteger[] peak = {new AtomicInteger(), new AtomicInteger()};
+		List<ListenableFuture<OneFile>> results = new ArrayList<>();
+		try (TransferManager manager = new TransferManager(8).setMaxConcurrentPerDrive(2)) {
+			for (int i = 0; i < 1000; i++) {
+				final int drive = i % 2;
+				results.add(manager.submit("drive" + drive, new Callable<OneFile>() {
+					@Override
+					public OneFile call() throws Exception {
+						int now = running[drive].incrementAndGet();
+						synchronized (peak[drive]) {
+							peak[drive].set(Math.max(peak[drive].get(), now));
+						}
+						Thread.sleep(1);
+						running[drive].decrementAndGet();
+						return null;
+					}
+				}));
+			}
+			Futures.allAsList(results).get(30, TimeUnit.SECONDS);
+			assertEquals(0, manager.getQueuedCount());
+		}
+		assertEquals(2, peak[0].get());
+		assertEquals(2, peak[1].get());
+	}
+
+	@Test
+	public void testRateCapAndThroughput() throws Exception {
+		int size = 128 * 1024;
+		List<ListenableFuture<OneFile>> results = new ArrayList<>();
+		long started = System.nanoTime();
+		try (TransferManager manager = new TransferManager(3).setMaxBytesPerSecond(256 * 1024)) {
+			for (int i = 0; i < 3; i++) {
+				results.add(manager.upload("drive", folder, newFile(size)));
+			}
+			for (OneFile uploaded : Futures.allAsList(results).get(30, TimeUnit.SECONDS)) {
+				assertEquals("uploaded", uploaded.getId());
+			}
+			long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+			assertEquals(3 * size, manager.getTransferredBytes());
+			assertTrue("took only " + millis + " ms", millis >= 1000);
+			assertTrue(manager.getThroughput() > 0);
+			assertTrue(manager.getThroughput() < 400 * 1024);
+		}
+	}
+
+	@Test
+	public void testCloseCancelsQueuedJobs() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		TransferManager manager = new TransferManager(4).setMaxConcurrentPerDrive(1);
+		ListenableFuture<OneFile> running = manager.submit("drive", new Callable<OneFile>() {
+			@Override
+			public OneFile call() throws Exception {
+				release.await();
+				return null;
+			}
+		});
+		ListenableFuture<OneFile> queued = manager.submit("drive", new Callable<OneFile>() {
+			@Override
+			public OneFile call() throws Exception {
+				return null;
+			}
+		});
+		assertEquals(1, manager.getQueuedCount());
+
+		manager.close();
+		release.countDown();
+
+		running.get(5, TimeUnit.SECONDS);
+		assertTrue(queued.isCancelled());
+	}
+
+	private File newFile(int size) throws Exception {
+		File file = File.createTempFile("TestOneSDKFile", ".bin");
+		files.add(file);
+		Files.write(new byte[size], file);
+		return file;
+	}
+}